@@ -0,0 +1,335 @@
+package snozama.amazons.mechanics;
+
+/**
+ * Game of the Amazons board backed by bit sets.
+ * 
+ * Squares are numbered as in {@link QueenRays}.  A set of squares is stored
+ * as two longs: squares 0-63 live in the first word and squares 64-99 in
+ * the second.  The board is the set of occupied squares and the set of
+ * squares holding each colour's amazons, so occupancy queries made by the
+ * search are single bit tests rather than array dereferences.  The grid of
+ * the parent class is only used to set the board up, and is dropped once
+ * the bit sets are built; every method reading it is overridden here.
+ * 
+ * The occupancy of every line of the board is kept as well, which lets the
+ * squares a queen can reach be read from {@link QueenReach} with one table
+ * lookup per line instead of walking each ray square by square.
+ */
+public class BitBoard extends Board
+{
+	/**
+	 * The set of occupied squares (amazons and arrows).
+	 */
+	long[] occupied;
+	
+	/**
+	 * The set of squares holding amazons.  WHITE set is first element,
+	 * BLACK second.
+	 */
+	long[][] amazonSquares;
+	
+	/**
+	 * The occupancy of each line of the board, as described in
+	 * {@link QueenReach}.
+	 */
+	int[] lineOccupancy;
+	
+	/**
+	 * Basic constructor.  Will generate a board in game ready form.
+	 */
+	public BitBoard()
+	{
+		super();
+		synchronise();
+	}
+	
+	/**
+	 * Constructor which clones an already existing board.  The board to be
+	 * cloned may be of any representation.
+	 * 
+	 * @param toClone	The board which is to be cloned.
+	 */
+	public BitBoard(Board toClone)
+	{
+		super(toClone);
+		synchronise();
+	}
+	
+	/**
+	 * Constructor for creating a smaller board for debugging purposes.
+	 * 
+	 * @param size		The dimensional size of the board.
+	 */
+	public BitBoard(int size)
+	{
+		super(size);
+		synchronise();
+	}
+	
+	@Override
+	public Board copy()
+	{
+		return new BitBoard(this);
+	}
+	
+	/**
+	 * Build the bit sets from the grid and amazon positions of the parent
+	 * class, then drop the grid.
+	 */
+	private void synchronise()
+	{
+		occupied = new long[2];
+		amazonSquares = new long[2][2];
+		lineOccupancy = QueenReach.OFF_BOARD.clone();
+		
+		for (int row = 0; row < SIZE; row++)
+		{
+			for (int col = 0; col < SIZE; col++)
+			{
+				if (board[row][col] != EMPTY)
+				{
+					int square = QueenRays.square(row, col);
+					occupied[square >>> 6] |= 1L << square;
+					setLines(square);
+				}
+			}
+		}
+		
+		for (int colour = 0; colour < amazons.length; colour++)
+		{
+			for (int i = 0; i < amazons[colour].length; i++)
+			{
+				int square = amazons[colour][i];
+				amazonSquares[colour][square >>> 6] |= 1L << square;
+			}
+		}
+		
+		board = null;
+	}
+	
+	/**
+	 * Determine if a square index is a member of a set of squares.
+	 * 
+	 * @param set		The set of squares.
+	 * @param square	The square index to test.
+	 * @return			{@code true} if the square is in the set,
+	 * 					{@code false} otherwise.
+	 */
+	private static boolean contains(long[] set, int square)
+	{
+		return (set[square >>> 6] & (1L << square)) != 0;
+	}
+	
+	@Override
+	public boolean isOccupied(int row, int col)
+	{
+		return contains(occupied, QueenRays.square(row, col));
+	}
+	
+	@Override
+	public boolean isOccupied(int square)
+	{
+		return contains(occupied, square);
+	}
+	
+	@Override
+	void getOccupied(long[] set)
+	{
+		set[0] = occupied[0];
+		set[1] = occupied[1];
+	}
+	
+	@Override
+	void getLineOccupancy(int[] lines)
+	{
+		System.arraycopy(lineOccupancy, 0, lines, 0, QueenReach.LINES);
+	}
+	
+	@Override
+	public boolean isWhite(int row, int col)
+	{
+		return contains(amazonSquares[WHITE], QueenRays.square(row, col));
+	}
+	
+	@Override
+	public boolean isBlack(int row, int col)
+	{
+		return contains(amazonSquares[BLACK], QueenRays.square(row, col));
+	}
+	
+	@Override
+	public boolean isArrow(int row, int col)
+	{
+		int square = QueenRays.square(row, col);
+		return contains(occupied, square) && !contains(amazonSquares[WHITE], square)
+				&& !contains(amazonSquares[BLACK], square);
+	}
+	
+	/**
+	 * Mark a square as occupied.  Which amazon, if any, occupies it is
+	 * recorded by {@link #placeAmazon(int, int, int, int)}.
+	 */
+	@Override
+	void occupy(int row, int col, byte content)
+	{
+		int square = QueenRays.square(row, col);
+		if (!contains(occupied, square))
+		{
+			adjustLiberties(square, -1);
+			occupied[square >>> 6] |= 1L << square;
+			setLines(square);
+		}
+	}
+	
+	@Override
+	void vacate(int row, int col)
+	{
+		int square = QueenRays.square(row, col);
+		if (contains(occupied, square))
+		{
+			adjustLiberties(square, 1);
+			occupied[square >>> 6] &= ~(1L << square);
+			clearLines(square);
+		}
+	}
+	
+	@Override
+	public byte[][] makeCopy()
+	{
+		byte[][] copy = new byte[SIZE][SIZE];
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			int row = QueenRays.ROW[square];
+			int col = QueenRays.COLUMN[square];
+			if (contains(amazonSquares[WHITE], square))
+			{
+				copy[row][col] = WHITE_AMAZON;
+			}
+			else if (contains(amazonSquares[BLACK], square))
+			{
+				copy[row][col] = BLACK_AMAZON;
+			}
+			else if (contains(occupied, square))
+			{
+				copy[row][col] = ARROW;
+			}
+		}
+		return copy;
+	}
+	
+	/**
+	 * Mark a square as occupied on each of its lines.
+	 * 
+	 * @param square	The square index.
+	 */
+	private void setLines(int square)
+	{
+		int[] lines = QueenReach.LINE[square];
+		int[] positions = QueenReach.POSITION[square];
+		for (int o = 0; o < QueenReach.ORIENTATIONS; o++)
+		{
+			lineOccupancy[lines[o]] |= 1 << positions[o];
+		}
+	}
+	
+	/**
+	 * Mark a square as empty on each of its lines.
+	 * 
+	 * @param square	The square index.
+	 */
+	private void clearLines(int square)
+	{
+		int[] lines = QueenReach.LINE[square];
+		int[] positions = QueenReach.POSITION[square];
+		for (int o = 0; o < QueenReach.ORIENTATIONS; o++)
+		{
+			lineOccupancy[lines[o]] &= ~(1 << positions[o]);
+		}
+	}
+	
+	/**
+	 * Get the positions a queen can reach along one of the lines through
+	 * its square.
+	 * 
+	 * @param square		The square the queen stands on.
+	 * @param from			A square to treat as empty.
+	 * @param orientation	The orientation of the line.
+	 * @return				The reachable positions along the line.
+	 */
+	private int lineReach(int square, int from, int orientation)
+	{
+		int line = QueenReach.LINE[square][orientation];
+		int occupancy = lineOccupancy[line];
+		if (QueenReach.LINE[from][orientation] == line)
+		{
+			occupancy &= ~(1 << QueenReach.POSITION[from][orientation]);
+		}
+		return QueenReach.reach(QueenReach.POSITION[square][orientation], occupancy);
+	}
+	
+	@Override
+	public int getQueenReach(int square, int from, int[] reach)
+	{
+		int count = 0;
+		for (int o = 0; o < QueenReach.ORIENTATIONS; o++)
+		{
+			int[] squares = QueenReach.LINE_SQUARES[QueenReach.LINE[square][o]];
+			for (int bits = lineReach(square, from, o); bits != 0; bits &= bits - 1)
+			{
+				reach[count++] = squares[Integer.numberOfTrailingZeros(bits)];
+			}
+		}
+		return count;
+	}
+	
+	@Override
+	public int countQueenReach(int square, int from)
+	{
+		return Integer.bitCount(lineReach(square, from, QueenReach.HORIZONTAL)) +
+				Integer.bitCount(lineReach(square, from, QueenReach.VERTICAL)) +
+				Integer.bitCount(lineReach(square, from, QueenReach.DIAGONAL)) +
+				Integer.bitCount(lineReach(square, from, QueenReach.ANTI_DIAGONAL));
+	}
+	
+	@Override
+	void placeAmazon(int colour, int index, int row, int col)
+	{
+		int from = amazons[colour][index];
+		amazonSquares[colour][from >>> 6] &= ~(1L << from);
+		
+		super.placeAmazon(colour, index, row, col);
+		
+		int to = QueenRays.square(row, col);
+		amazonSquares[colour][to >>> 6] |= 1L << to;
+	}
+	
+	/**
+	 * Determine if the squares strictly between two squares on a common
+	 * line are all empty, by masking the occupied squares with the
+	 * precomputed squares in between.
+	 * 
+	 * @param from		The square the path starts at.
+	 * @param to		The square the path ends at.  Must share a row,
+	 * 					column or diagonal with {@code from}.
+	 * @param vacated	A square to treat as empty.
+	 * @return			{@code true} if nothing blocks the path,
+	 * 					{@code false} otherwise.
+	 */
+	@Override
+	public boolean isClearPath(int from, int to, int vacated)
+	{
+		int pair = from*QueenRays.SQUARES + to;
+		long low = occupied[0];
+		long high = occupied[1];
+		if (vacated < 64)
+		{
+			low &= ~(1L << vacated);
+		}
+		else
+		{
+			high &= ~(1L << vacated);
+		}
+		return (QueenRays.BETWEEN_LOW[pair] & low) == 0 &&
+				(QueenRays.BETWEEN_HIGH[pair] & high) == 0;
+	}
+}
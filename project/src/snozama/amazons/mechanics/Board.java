@@ -17,12 +17,17 @@ public class Board
 	
 	/**
 	 * The game board, represented as a two-dimensional array.  The first
-	 * dimension is the row, the second the column.
+	 * dimension is the row, the second the column.  Each element holds the
+	 * content of the square: {@code EMPTY}, {@code ARROW},
+	 * {@code WHITE_AMAZON} or {@code BLACK_AMAZON}.
 	 * 
 	 * Starting setup
 	 *  -WHITE at [6][0], [9][3], [9][6], [6][9]
 	 *  -BLACK at [3][0], [0][3], [0][6], [3][9]
 	 *  -the rest will be empty
+	 * 
+	 * A {@link BitBoard} only fills this in to build its bit sets, and then
+	 * drops it.
 	 */
 	byte board[][];
 	
@@ -32,6 +37,26 @@ public class Board
 	 */
 	public byte amazons[][];
 	
+	/**
+	 * The number of empty squares adjacent to each square, indexed by square
+	 * number (see {@link QueenRays}).  Kept up to date by
+	 * {@link #occupy(int, int, byte)} and {@link #vacate(int, int)}, so
+	 * whether an amazon can move is a single lookup.
+	 */
+	byte[] liberties;
+	
+	/**
+	 * Scratch space for the squares an amazon can move to during successor
+	 * generation, kept with the board so generation does not allocate.
+	 */
+	private final int[] destinationBuffer = new int[QueenRays.MAX_REACH];
+	
+	/**
+	 * Scratch space for the squares an arrow can be shot to during successor
+	 * generation.
+	 */
+	private final int[] arrowBuffer = new int[QueenRays.MAX_REACH];
+	
 	/**
 	 * Constant byte value representing an empty position on the board.
 	 */
@@ -39,9 +64,26 @@ public class Board
 	
 	/**
 	 * Constant byte value representing a non-empty position on the board.
+	 * Occupied squares now record what occupies them, and this value is
+	 * the one used for arrows.
 	 */
 	public static final byte OCCUPIED = 1;
 	
+	/**
+	 * Constant byte value representing a position holding an arrow.
+	 */
+	public static final byte ARROW = OCCUPIED;
+	
+	/**
+	 * Constant byte value representing a position holding a white amazon.
+	 */
+	public static final byte WHITE_AMAZON = 2;
+	
+	/**
+	 * Constant byte value representing a position holding a black amazon.
+	 */
+	public static final byte BLACK_AMAZON = 3;
+	
 	/**
 	 * Constant integer value representing the white player.
 	 */
@@ -67,24 +109,26 @@ public class Board
 		}
 		
 		// WHITE initial setup.
-		board[6][0] = OCCUPIED;
-		board[9][3] = OCCUPIED;
-		board[9][6] = OCCUPIED;
-		board[6][9] = OCCUPIED;
+		board[6][0] = WHITE_AMAZON;
+		board[9][3] = WHITE_AMAZON;
+		board[9][6] = WHITE_AMAZON;
+		board[6][9] = WHITE_AMAZON;
 		amazons[WHITE][0] = encodeAmazonPosition(6, 0);
 		amazons[WHITE][1] = encodeAmazonPosition(9, 3);
 		amazons[WHITE][2] = encodeAmazonPosition(9, 6);
 		amazons[WHITE][3] = encodeAmazonPosition(6, 9);
 		
 		// BLACK initial setup.
-		board[3][0] = OCCUPIED;
-		board[0][3] = OCCUPIED;
-		board[0][6] = OCCUPIED;
-		board[3][9] = OCCUPIED;
+		board[3][0] = BLACK_AMAZON;
+		board[0][3] = BLACK_AMAZON;
+		board[0][6] = BLACK_AMAZON;
+		board[3][9] = BLACK_AMAZON;
 		amazons[BLACK][0] = encodeAmazonPosition(3, 0);
 		amazons[BLACK][1] = encodeAmazonPosition(0, 3);
 		amazons[BLACK][2] = encodeAmazonPosition(0, 6);
 		amazons[BLACK][3] = encodeAmazonPosition(3, 9);
+		
+		countLiberties();
 	}
 	
 	/**
@@ -104,6 +148,28 @@ public class Board
 				this.amazons[i][j] = toClone.amazons[i][j];
 			}
 		}
+		
+		liberties = toClone.liberties.clone();
+	}
+	
+	/**
+	 * Count the empty neighbours of every square from the grid.  Used by the
+	 * constructors, which fill in the grid directly.
+	 */
+	private void countLiberties()
+	{
+		liberties = new byte[QueenRays.SQUARES];
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			int[] neighbours = QueenRays.NEIGHBOURS[square];
+			for (int n = 0; n < neighbours.length; n++)
+			{
+				if (board[QueenRays.ROW[neighbours[n]]][QueenRays.COLUMN[neighbours[n]]] == EMPTY)
+				{
+					liberties[square]++;
+				}
+			}
+		}
 	}
 	
 	/**
@@ -123,35 +189,37 @@ public class Board
 		}
 		
 		// WHITE initial setup.
-		board[2][0] = OCCUPIED;
-		board[3][1] = OCCUPIED;
-		board[3][2] = OCCUPIED;
-		board[2][3] = OCCUPIED;
+		board[2][0] = WHITE_AMAZON;
+		board[3][1] = WHITE_AMAZON;
+		board[3][2] = WHITE_AMAZON;
+		board[2][3] = WHITE_AMAZON;
 		amazons[WHITE][0] = encodeAmazonPosition(2, 0);
 		amazons[WHITE][1] = encodeAmazonPosition(3, 1);
 		amazons[WHITE][2] = encodeAmazonPosition(3, 2);
 		amazons[WHITE][3] = encodeAmazonPosition(2, 3);
 		
 		// BLACK initial setup.
-		board[1][0] = OCCUPIED;
-		board[0][1] = OCCUPIED;
-		board[0][2] = OCCUPIED;
-		board[1][3] = OCCUPIED;
+		board[1][0] = BLACK_AMAZON;
+		board[0][1] = BLACK_AMAZON;
+		board[0][2] = BLACK_AMAZON;
+		board[1][3] = BLACK_AMAZON;
 		amazons[BLACK][0] = encodeAmazonPosition(1, 0);
 		amazons[BLACK][1] = encodeAmazonPosition(0, 1);
 		amazons[BLACK][2] = encodeAmazonPosition(0, 2);
 		amazons[BLACK][3] = encodeAmazonPosition(1, 3);
 		
 		// ARROWS to block off rest of board.
-		board[4][0] = OCCUPIED;
-		board[4][1] = OCCUPIED;
-		board[4][2] = OCCUPIED;
-		board[4][3] = OCCUPIED;
-		board[4][4] = OCCUPIED;
-		board[3][4] = OCCUPIED;
-		board[2][4] = OCCUPIED;
-		board[1][4] = OCCUPIED;
-		board[0][4] = OCCUPIED;
+		board[4][0] = ARROW;
+		board[4][1] = ARROW;
+		board[4][2] = ARROW;
+		board[4][3] = ARROW;
+		board[4][4] = ARROW;
+		board[3][4] = ARROW;
+		board[2][4] = ARROW;
+		board[1][4] = ARROW;
+		board[0][4] = ARROW;
+		
+		countLiberties();
 	}
 	
 	/**
@@ -166,6 +234,38 @@ public class Board
 		return board[row][col] != EMPTY;
 	}
 	
+	/**
+	 * Determine if a square is currently occupied.
+	 * 
+	 * @param square	The square index of the position to check (see
+	 * 					{@link QueenRays}).
+	 * @return			{@code true} if it is occupied, {@code false} otherwise.
+	 */
+	public boolean isOccupied(int square)
+	{
+		return board[QueenRays.ROW[square]][QueenRays.COLUMN[square]] != EMPTY;
+	}
+	
+	/**
+	 * Get the set of occupied squares, as two words: squares 0-63 in the
+	 * first and squares 64-99 in the second (square {@code s} at bit
+	 * {@code s - 64}).
+	 * 
+	 * @param set	Array of length two to store the set in.
+	 */
+	void getOccupied(long[] set)
+	{
+		set[0] = 0;
+		set[1] = 0;
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			if (isOccupied(square))
+			{
+				set[square >>> 6] |= 1L << square;
+			}
+		}
+	}
+	
 	/**
 	 * Determine if a board position is currently occupied by a white amazon.
 	 * 
@@ -176,18 +276,7 @@ public class Board
 	 */
 	public boolean isWhite(int row, int col)
 	{
-		for (int i = 0; i < amazons[WHITE].length; i++)
-		{
-			int arow = decodeAmazonRow((amazons[WHITE][i]));
-			int acol = decodeAmazonColumn((amazons[WHITE][i]));
-			
-			if (arow == row && acol == col)
-			{
-				return true;
-			}
-		}
-		
-		return false;
+		return board[row][col] == WHITE_AMAZON;
 	}
 	
 	/**
@@ -200,26 +289,12 @@ public class Board
 	 */
 	public boolean isBlack(int row, int col)
 	{
-		for (int i = 0; i < amazons[BLACK].length; i++)
-		{
-			int arow = decodeAmazonRow((amazons[BLACK][i]));
-			int acol = decodeAmazonColumn((amazons[BLACK][i]));
-			
-			if (arow == row && acol == col)
-			{
-				return true;
-			}
-		}
-		
-		return false;
+		return board[row][col] == BLACK_AMAZON;
 	}
 	
 	/**
 	 * Determine if a board position is currently occupied by an arrow.
 	 * 
-	 * Note:	If you can avoid using this method, do so.  Use isOccupied()
-	 * 			instead.
-	 * 
 	 * @param row		The row of the position to check.
 	 * @param col		The column of the position to check.
 	 * @return			{@code true} if it is occupied by an arrow,
@@ -227,7 +302,7 @@ public class Board
 	 */
 	public boolean isArrow(int row, int col)
 	{
-		return isOccupied(row, col) && !isBlack(row, col) && !isWhite(row, col);
+		return board[row][col] == ARROW;
 	}
 	
 	/**
@@ -330,7 +405,9 @@ public class Board
 	}
 	
 	/**
-	 * Check an that an arbitrary move is valid.
+	 * Check an that an arbitrary move is valid.  The check reads the board
+	 * without changing it, so it is safe to call on a board other threads
+	 * are also reading.
 	 * 
 	 * @param move		The move to check.
 	 * @return			{@code true} if the move is valid, {@code false}
@@ -338,24 +415,52 @@ public class Board
 	 */
 	public boolean isValidMove(int move)
 	{
-		int[] decoded = MoveManager.decodeMove(move);
-		
-		byte position = amazons[decoded[MoveManager.PLAYER_COLOUR]][decoded[MoveManager.AMAZON_ARRAY_INDEX]];
-		int row_s = Board.decodeAmazonRow(position);
-		int col_s = Board.decodeAmazonColumn(position);
-		
-		boolean toRet = isValidMove(row_s, col_s, decoded[MoveManager.AMAZON_ROW_FINISH], decoded[MoveManager.AMAZON_COLUMN_FINISH]);
-		
-		board[row_s][col_s] = EMPTY;
+		int colour = MoveManager.colourOf(move);
+		if (colour != WHITE && colour != BLACK)
+		{
+			return false;
+		}
 		
-		toRet = toRet && isValidMove(decoded[MoveManager.AMAZON_ROW_FINISH],
-							decoded[MoveManager.AMAZON_COLUMN_FINISH],
-							decoded[MoveManager.ARROW_ROW],
-							decoded[MoveManager.ARROW_COLUMN]
-							);
-		board[row_s][col_s] = OCCUPIED;
+		int from = amazons[colour][MoveManager.amazonIndexOf(move)];
+		int to = MoveManager.finishSquareOf(move);
+		int arrow = MoveManager.arrowSquareOf(move);
+		if (to >= QueenRays.SQUARES || arrow >= QueenRays.SQUARES)
+		{
+			return false;
+		}
 		
-		return toRet;
+		// The amazon has left its square by the time the arrow is shot.
+		return QueenRays.DIRECTION[from*QueenRays.SQUARES + to] > -1 &&
+				!isOccupied(to) &&
+				isClearPath(from, to, from) &&
+				QueenRays.DIRECTION[to*QueenRays.SQUARES + arrow] > -1 &&
+				(arrow == from || !isOccupied(arrow)) &&
+				isClearPath(to, arrow, from);
+	}
+	
+	/**
+	 * Determine if the squares strictly between two squares on a common
+	 * line are all empty.
+	 * 
+	 * @param from		The square the path starts at.
+	 * @param to		The square the path ends at.  Must share a row,
+	 * 					column or diagonal with {@code from}.
+	 * @param vacated	A square to treat as empty, such as the square an
+	 * 					amazon has just left.
+	 * @return			{@code true} if nothing blocks the path,
+	 * 					{@code false} otherwise.
+	 */
+	public boolean isClearPath(int from, int to, int vacated)
+	{
+		int[] ray = QueenRays.RAYS[from][QueenRays.DIRECTION[from*QueenRays.SQUARES + to]];
+		for (int k = 0; ray[k] != to; k++)
+		{
+			if (ray[k] != vacated && isOccupied(ray[k]))
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 	
 	/**
@@ -379,8 +484,8 @@ public class Board
 			return false;
 		}
 		
-		board[row_s][col_s] = EMPTY;
-		board[row_f][col_f] = OCCUPIED;
+		vacate(row_s, col_s);
+		occupy(row_f, col_f, amazonContent(colour));
 		
 		//Update amazon's new position
 		for (int i = 0; i < amazons[colour].length; i++)
@@ -390,7 +495,7 @@ public class Board
 			
 			if (arow == row_s && acol == col_s)
 			{
-				amazons[colour][i] = encodeAmazonPosition(row_f, col_f);
+				placeAmazon(colour, i, row_f, col_f);
 				break;
 			}
 		}
@@ -415,7 +520,7 @@ public class Board
 			return false;
 		}
 		
-		board[row_f][col_f] = OCCUPIED;
+		occupy(row_f, col_f, ARROW);
 		return true;
 	}
 	
@@ -430,7 +535,7 @@ public class Board
 	{
 		if( isArrow( arow, acol) )
 		{
-			board[arow][acol] = EMPTY;
+			vacate(arow, acol);
 			return true;
 		}
 		else
@@ -475,6 +580,107 @@ public class Board
 				acol, colour);
 	}
 	
+	/**
+	 * Mark a square as occupied.  Every change to the occupancy of the board
+	 * goes through this method, {@link #vacate(int, int)} or
+	 * {@link #placeAmazon(int, int, int, int)}, so that other board
+	 * representations can keep their own state in step with the grid.
+	 * 
+	 * @param row		The row of the square.
+	 * @param col		The column of the square.
+	 * @param content	What now occupies the square: {@code ARROW},
+	 * 					{@code WHITE_AMAZON} or {@code BLACK_AMAZON}.
+	 */
+	void occupy(int row, int col, byte content)
+	{
+		if (board[row][col] == EMPTY)
+		{
+			adjustLiberties(QueenRays.square(row, col), -1);
+		}
+		board[row][col] = content;
+	}
+	
+	/**
+	 * Mark a square as empty.
+	 * 
+	 * @param row		The row of the square.
+	 * @param col		The column of the square.
+	 */
+	void vacate(int row, int col)
+	{
+		if (board[row][col] != EMPTY)
+		{
+			adjustLiberties(QueenRays.square(row, col), 1);
+		}
+		board[row][col] = EMPTY;
+	}
+	
+	/**
+	 * Change the liberty count of every neighbour of a square whose
+	 * occupancy has changed.
+	 * 
+	 * @param square	The square that was filled or emptied.
+	 * @param change	{@code -1} if it was filled, {@code 1} if emptied.
+	 */
+	void adjustLiberties(int square, int change)
+	{
+		int[] neighbours = QueenRays.NEIGHBOURS[square];
+		for (int n = 0; n < neighbours.length; n++)
+		{
+			liberties[neighbours[n]] += change;
+		}
+	}
+	
+	/**
+	 * Get the occupancy of every line of the board, as described in
+	 * {@link QueenReach}.
+	 * 
+	 * @param lines		Array to store the occupancies in.  Must hold
+	 * 					{@link QueenReach#LINES} lines.
+	 */
+	void getLineOccupancy(int[] lines)
+	{
+		System.arraycopy(QueenReach.OFF_BOARD, 0, lines, 0, QueenReach.LINES);
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			if (board[QueenRays.ROW[square]][QueenRays.COLUMN[square]] != EMPTY)
+			{
+				int[] squareLines = QueenReach.LINE[square];
+				int[] positions = QueenReach.POSITION[square];
+				for (int o = 0; o < QueenReach.ORIENTATIONS; o++)
+				{
+					lines[squareLines[o]] |= 1 << positions[o];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Record the new position of an amazon.  The squares themselves must
+	 * already have been updated with {@link #occupy(int, int)} and
+	 * {@link #vacate(int, int)}.
+	 * 
+	 * @param colour	The colour of the amazon.
+	 * @param index		The index of the amazon in the amazons array.
+	 * @param row		The row the amazon is now in.
+	 * @param col		The column the amazon is now in.
+	 */
+	void placeAmazon(int colour, int index, int row, int col)
+	{
+		amazons[colour][index] = encodeAmazonPosition(row, col);
+	}
+	
+	/**
+	 * Get the square content representing an amazon of a colour.
+	 * 
+	 * @param colour	The colour of the amazon.
+	 * @return			{@code WHITE_AMAZON} or {@code BLACK_AMAZON}.
+	 */
+	static byte amazonContent(int colour)
+	{
+		return (byte)(WHITE_AMAZON + colour);
+	}
+	
 	/**
 	 * Get the row of an amazon from its encoded position.
 	 * 
@@ -513,113 +719,64 @@ public class Board
 	}
 	
 	/**
-	 * For a given amazon position, find valid moves involving arrow positions.
+	 * Find the squares a queen standing on a square can move to, stopping
+	 * at the first occupied square in each direction.
 	 * 
-	 * @param successors	Set of moves to add new moves to.
-	 * @param colour		The colour of the player whose turn it is.
-	 * @param arr_i			The index of the amazon in the amazon's array.
-	 * @param arow			The row the shooting amazon is in.
-	 * @param acol			The column the shooting amazon is in.
-	 * @param row_s			The row the amazon came from.
-	 * @param col_s			The column the amazon came from.
+	 * @param square	The square the queen stands on.
+	 * @param from		A square to treat as empty, such as the square an
+	 * 					amazon has just left, or {@code square} if none.
+	 * @param reach		Array to store the reachable squares in.  Must hold
+	 * 					at least {@link QueenRays#MAX_REACH} squares.
+	 * @return			The number of reachable squares.
 	 */
-	private void addAmazonArrowMoves(MoveManager successors, int colour, int arr_i, int arow, int acol, int row_s, int col_s)
+	public int getQueenReach(int square, int from, int[] reach)
 	{
-		for (int c = acol+1; c < Board.SIZE; c++)
-		{
-			if (this.isOccupied(arow, c) && !(arow == row_s && c == col_s))
-			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, arow, c);
-			}
-		}
-		// Find moves to the left
-		for (int c = acol-1; c > -1; c--)
-		{
-			if (this.isOccupied(arow, c) && !(arow == row_s && c == col_s))
-			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, arow, c);
-			}
-		}
-		// Find moves below
-		for (int r = arow+1; r < Board.SIZE; r++)
-		{
-			if (this.isOccupied(r, acol) && !(r == row_s && acol == col_s))
-			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, r, acol);
-			}
-		}
-		// Find moves above
-		for (int r = arow-1; r > -1; r--)
-		{
-			if (this.isOccupied(r, acol) && !(r == row_s && acol == col_s))
-			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, r, acol);
-			}
-		}
-		// Find moves diagonally (\) to the right
-		for (int r = arow+1, c = acol+1; r < Board.SIZE && c < Board.SIZE; r++, c++)
-		{
-			if (this.isOccupied(r, c) && !(r == row_s && c == col_s))
-			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, r, c);
-			}
-		}
-		// Find moves diagonally (\) to the left
-		for (int r = arow-1, c = acol-1; r > -1 && c > -1; r--, c--)
-		{
-			if (this.isOccupied(r, c) && !(r == row_s && c == col_s))
-			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, r, c);
-			}
-		}
-		// Find moves anti-diagonally (/) to the right
-		for (int r = arow-1, c = acol+1; r > -1 && c < Board.SIZE; r--, c++)
+		int count = 0;
+		int[][] rays = QueenRays.RAYS[square];
+		
+		for (int d = 0; d < rays.length; d++)
 		{
-			if (this.isOccupied(r, c) && !(r == row_s && c == col_s))
+			int[] ray = rays[d];
+			for (int k = 0; k < ray.length; k++)
 			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, r, c);
+				int target = ray[k];
+				if (target != from && this.isOccupied(target))
+				{
+					break;
+				}
+				reach[count++] = target;
 			}
 		}
-		// Find moves anti-diagonally (/) to the left
-		for (int r = arow+1, c = acol-1; r < Board.SIZE && c > -1; r++, c--)
+		return count;
+	}
+	
+	/**
+	 * Count the squares a queen standing on a square can move to.
+	 * 
+	 * @param square	The square the queen stands on.
+	 * @param from		A square to treat as empty, such as the square an
+	 * 					amazon has just left, or {@code square} if none.
+	 * @return			The number of reachable squares.
+	 */
+	public int countQueenReach(int square, int from)
+	{
+		int count = 0;
+		int[][] rays = QueenRays.RAYS[square];
+		
+		for (int d = 0; d < rays.length; d++)
 		{
-			if (this.isOccupied(r, c) && !(r == row_s && c == col_s))
+			int[] ray = rays[d];
+			for (int k = 0; k < ray.length; k++)
 			{
-				break;
-			}
-			else // this is a legal move
-			{
-				successors.add(colour, arr_i, arow, acol, r, c);
+				int target = ray[k];
+				if (target != from && this.isOccupied(target))
+				{
+					break;
+				}
+				count++;
 			}
 		}
+		return count;
 	}
 	
 	/**
@@ -631,114 +788,57 @@ public class Board
 	 */
 	public MoveManager getSuccessors(int colour)
 	{
-		MoveManager successors = new MoveManager();
+		return getSuccessors(colour, new MoveManager());
+	}
+	
+	/**
+	 * Generate all possible successors of the current board into an existing
+	 * set of moves, replacing whatever it held.  Searches keep one set of
+	 * moves per ply and refill it at every node, rather than allocating a
+	 * new one.
+	 * 
+	 * @param colour		The colour of the player that is currently playing.
+	 * @param successors	The set of moves to fill.  Must be able to hold
+	 * 						{@link MoveManager#MAX_MOVES} moves.
+	 * @return				{@code successors}, holding the possible moves
+	 * 						from the current board.
+	 */
+	public MoveManager getSuccessors(int colour, MoveManager successors)
+	{
+		successors.clear();
+		int[] destinations = destinationBuffer;
+		int[] arrows = arrowBuffer;
 		
 		for (int j = 0; j < this.amazons[colour].length; j++) //for each amazon of a colour (4)
 		{
-			int arow = Board.decodeAmazonRow(this.amazons[colour][j]);		//amazon's starting row position
-			int acol = Board.decodeAmazonColumn(this.amazons[colour][j]);	//amazon's starting column position
+			int from = this.amazons[colour][j];
+			int moves = this.getQueenReach(from, from, destinations);
 			
-			// The following comments assume [0][0] is considered top left
-			// Find moves to the right
-			for (int c = acol+1; c < Board.SIZE; c++)
-			{
-				if (this.isOccupied(arow, c))
-				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, arow, c, arow, acol);
-				}
-			}
-			// Find moves to the left
-			for (int c = acol-1; c > -1; c--)
-			{
-				if (this.isOccupied(arow, c))
-				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, arow, c, arow, acol);
-				}
-			}
-			// Find moves below
-			for (int r = arow+1; r < Board.SIZE; r++)
+			for (int m = 0; m < moves; m++)
 			{
-				if (this.isOccupied(r, acol))
+				int to = destinations[m];
+				
+				// The amazon may shoot back through the square it left.
+				int shots = this.getQueenReach(to, from, arrows);
+				for (int a = 0; a < shots; a++)
 				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, r, acol, arow, acol);
-				}
-			}
-			// Find moves above
-			for (int r = arow-1; r > -1; r--)
-			{
-				if (this.isOccupied(r, acol))
-				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, r, acol, arow, acol);
-				}
-			}
-			// Find moves diagonally (\) to the right
-			for (int r = arow+1, c = acol+1; r < Board.SIZE && c < Board.SIZE; r++, c++)
-			{
-				if (this.isOccupied(r, c))
-				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, r, c, arow, acol);
-				}
-			}
-			// Find moves diagonally (\) to the left
-			for (int r = arow-1, c = acol-1; r > -1 && c > -1; r--, c--)
-			{
-				if (this.isOccupied(r, c))
-				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, r, c, arow, acol);
-				}
-			}
-			// Find moves anti-diagonally (/) to the right
-			for (int r = arow-1, c = acol+1; r > -1 && c < Board.SIZE; r--, c++)
-			{
-				if (this.isOccupied(r, c))
-				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, r, c, arow, acol);
-				}
-			}
-			// Find moves anti-diagonally (/) to the left
-			for (int r = arow+1, c = acol-1; r < Board.SIZE && c > -1; r++, c--)
-			{
-				if (this.isOccupied(r, c))
-				{
-					break;
-				}
-				else // this is a legal move
-				{
-					this.addAmazonArrowMoves(successors, colour, j, r, c, arow, acol);
+					successors.add(MoveManager.encodeMove(colour, j, to, arrows[a]));
 				}
 			}
 		}
 		return successors;
 	}
 	
+	/**
+	 * Make an independent copy of this board, of the same representation.
+	 * 
+	 * @return	The copy of the board.
+	 */
+	public Board copy()
+	{
+		return new Board(this);
+	}
+	
 	/**
 	 * Makes a copy of the game board.
 	 * @return	The copy of the game board.
@@ -766,71 +866,51 @@ public class Board
 	 */
 	public boolean isTerminal()
 	{
-		boolean whiteCanMove = false;
-		for (int i = 0; i < amazons[WHITE].length; i++)
-		{
-			if (hasMove(amazons[WHITE][i]))
-				whiteCanMove = true;
-		}
-		
-		if (!whiteCanMove)
-			return true;
-		
-		for (int i = 0; i < amazons[BLACK].length; i++)
+		return !canMove(WHITE) || !canMove(BLACK);
+	}
+	
+	/**
+	 * Determine if any amazon of a colour has an available move.
+	 * 
+	 * @param colour	The colour of the amazons to check.
+	 * @return			{@code true} if at least one amazon can move,
+	 * 					{@code false} otherwise.
+	 */
+	public boolean canMove(int colour)
+	{
+		for (int i = 0; i < amazons[colour].length; i++)
 		{
-			if (hasMove(amazons[BLACK][i]))
-				return false;
+			if (liberties[amazons[colour][i]] != 0)
+			{
+				return true;
+			}
 		}
-		
-		return true;
+		return false;
 	}
 	
 	/**
-	 * Determines if an amazon has an available move.
+	 * Determine if an amazon is trapped, that is, has no available move.  An
+	 * amazon can move exactly when one of its neighbouring squares is
+	 * empty.
 	 * 
-	 * @param amazon	The amazon for which to check if there is an available move.
-	 * @return			{@code true} if amazon has at least one available move,
-	 * 					{@code false} if amazon cannot move.
+	 * @param amazon	The encoded position of the amazon.
+	 * @return			{@code true} if the amazon cannot move,
+	 * 					{@code false} otherwise.
 	 */
-	private boolean hasMove(byte amazon)
+	public boolean isTrapped(int amazon)
 	{
-		int arow = decodeAmazonRow(amazon);
-		int acol = decodeAmazonColumn(amazon);
-
-		// The following comments assume [0][0] is considered top left
-		// if can move right
-		if (!(acol == SIZE-1 || isOccupied(arow, acol+1)))
-			return true;
-		
-		// if can move left
-		if (!(acol == 0 || isOccupied(arow, acol-1)))
-			return true;
-		
-		// if can move down
-		if (!(arow == SIZE-1 || isOccupied(arow+1, acol)))
-			return true;
-		
-		// if can move up
-		if (!(arow == 0 || isOccupied(arow-1, acol)))
-			return true;
-		
-		// if can move diagonally (\) right
-		if (!(arow == SIZE-1 || acol == SIZE-1 || isOccupied(arow+1, acol+1)))
-			return true;
-		
-		// if can move diagonally (\) left
-		if (!(arow == 0 || acol == 0 || isOccupied(arow-1, acol-1)))
-			return true;
-		
-		// if can move anti-diagonally (/) right
-		if (!(arow == 0 || acol == SIZE-1 || isOccupied(arow-1, acol+1)))
-			return true;
-		
-		// if can move anti-diagonally (/) left
-		if (!(arow == SIZE-1 || acol == 0 || isOccupied(arow+1, acol-1)))
-			return true;
-		
-		return false;
+		return liberties[amazon] == 0;
+	}
+	
+	/**
+	 * Get the number of empty squares adjacent to a square.
+	 * 
+	 * @param square	The square index.
+	 * @return			The number of empty neighbouring squares, 0-8.
+	 */
+	public int getLiberties(int square)
+	{
+		return liberties[square];
 	}
 	
 	@Override
@@ -838,11 +918,15 @@ public class Board
 	{
 		Board compareTo = (Board)obj;
 		
-		for (int i = 0; i < board.length; i++)
+		// Ask each board for its squares, as they need not share a
+		// representation.
+		for (int row = 0; row < SIZE; row++)
 		{
-			for (int j = 0; j < board[i].length; j++)
+			for (int col = 0; col < SIZE; col++)
 			{
-				if (compareTo.board[i][j] != board[i][j])
+				if (compareTo.isOccupied(row, col) != isOccupied(row, col) ||
+						compareTo.isWhite(row, col) != isWhite(row, col) ||
+						compareTo.isBlack(row, col) != isBlack(row, col))
 				{
 					return false;
 				}
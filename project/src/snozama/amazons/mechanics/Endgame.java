@@ -0,0 +1,171 @@
+package snozama.amazons.mechanics;
+
+/**
+ * Play in separated endgames.
+ * 
+ * Once no empty square can be reached by amazons of both colours, the
+ * players can no longer interfere with each other: each simply fills the
+ * squares on its own side, and the game is decided by who runs out of
+ * moves first.  Searching such a position is wasted effort.  This class
+ * detects the state cheaply and picks a filling move instead: the move that
+ * keeps the most squares usable by the player's own amazons.
+ * 
+ * Like {@link Regions}, an instance keeps its working state in its own
+ * buffers, so each thread should hold its own.
+ */
+public class Endgame
+{
+	/**
+	 * The empty squares of the board being examined.
+	 */
+	private final long[] empty = new long[2];
+	
+	/**
+	 * Scratch space for sets being flood filled.
+	 */
+	private final long[] region = new long[2];
+	
+	/**
+	 * Scratch space for the squares the filling region may grow into.
+	 */
+	private final long[] within = new long[2];
+	
+	/**
+	 * The moves considered by {@link #fill(Board, int)}.
+	 */
+	private final MoveManager successors = new MoveManager();
+	
+	/**
+	 * Determine if a board is a separated endgame, that is, no empty square
+	 * is connected to amazons of both colours.
+	 * 
+	 * @param board		The board to examine.
+	 * @return			{@code true} if the two colours are separated,
+	 * 					{@code false} otherwise.
+	 */
+	public boolean isSeparated(Board board)
+	{
+		findEmpty(board);
+		
+		// Grow white's amazons through the empty squares and see if any
+		// black amazon is met.
+		region[0] = 0;
+		region[1] = 0;
+		addAmazons(board, Board.WHITE, region);
+		within[0] = empty[0] | region[0];
+		within[1] = empty[1] | region[1];
+		addAmazons(board, Board.BLACK, within);
+		FloodFill.fill(region, within, Regions.FULL);
+		
+		for (int i = 0; i < board.amazons[Board.BLACK].length; i++)
+		{
+			int square = board.amazons[Board.BLACK][i];
+			if ((region[square >>> 6] & (1L << square)) != 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Count the empty squares connected to the amazons of a colour.  In a
+	 * separated endgame these are the squares the player still has to fill.
+	 * 
+	 * @param board		The board to examine.
+	 * @param colour	The colour of the player.
+	 * @return			The number of empty squares in regions bordering the
+	 * 					player's amazons.
+	 */
+	public int countUsable(Board board, int colour)
+	{
+		findEmpty(board);
+		
+		// Start from the empty neighbours of the amazons.
+		region[0] = 0;
+		region[1] = 0;
+		for (int i = 0; i < board.amazons[colour].length; i++)
+		{
+			int[] neighbours = QueenRays.NEIGHBOURS[board.amazons[colour][i]];
+			for (int n = 0; n < neighbours.length; n++)
+			{
+				region[neighbours[n] >>> 6] |= 1L << neighbours[n];
+			}
+		}
+		region[0] &= empty[0];
+		region[1] &= empty[1];
+		
+		FloodFill.fill(region, empty, Regions.FULL);
+		return FloodFill.size(region[0], region[1]);
+	}
+	
+	/**
+	 * Choose a filling move: the move after which the player has the most
+	 * usable squares left.  Among equally good moves, the arrow is shot to
+	 * the square with the fewest empty neighbours, so that it fills a
+	 * corner or dead end rather than splitting a region.
+	 * 
+	 * Only meaningful in a separated endgame.  The board is left as it was
+	 * found.
+	 * 
+	 * @param board		The board to move on.
+	 * @param colour	The colour of the player to move.
+	 * @return			The chosen move, encoded as by
+	 * 					{@link MoveManager#encodeMove(int, int, int, int)},
+	 * 					or {@code -1} if the player has no move.
+	 */
+	public int fill(Board board, int colour)
+	{
+		board.getSuccessors(colour, successors);
+		
+		int best = -1;
+		int bestScore = Integer.MIN_VALUE;
+		for (int index = 0; index < successors.size(); index++)
+		{
+			int amazon = board.amazons[colour][successors.getAmazonIndex(index)];
+			int row_s = QueenRays.ROW[amazon];
+			int col_s = QueenRays.COLUMN[amazon];
+			int arrow = QueenRays.square(successors.getArrowRow(index), successors.getArrowColumn(index));
+			
+			successors.applyMove(board, index);
+			int score = 16*countUsable(board, colour) - board.getLiberties(arrow);
+			successors.undoMove(board, index, row_s, col_s);
+			
+			if (score > bestScore)
+			{
+				bestScore = score;
+				best = index;
+			}
+		}
+		
+		return best == -1 ? -1 : successors.getMove(best);
+	}
+	
+	/**
+	 * Record the empty squares of a board in {@link #empty}.
+	 * 
+	 * @param board		The board.
+	 */
+	private void findEmpty(Board board)
+	{
+		board.getOccupied(empty);
+		empty[0] = ~empty[0];
+		empty[1] = ~empty[1] & ((1L << (QueenRays.SQUARES - 64)) - 1);
+	}
+	
+	/**
+	 * Add the squares of a colour's amazons to a set.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the amazons.
+	 * @param set		The set to add to.
+	 */
+	private static void addAmazons(Board board, int colour, long[] set)
+	{
+		for (int i = 0; i < board.amazons[colour].length; i++)
+		{
+			int square = board.amazons[colour][i];
+			set[square >>> 6] |= 1L << square;
+		}
+	}
+}
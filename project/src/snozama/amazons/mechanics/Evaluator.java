@@ -0,0 +1,38 @@
+package snozama.amazons.mechanics;
+
+/**
+ * Scores board positions for the searches.
+ * 
+ * An evaluator offers two tiers: a full evaluation, used on the leaves of
+ * a search, and a cheap estimate that a search can afford to use far more
+ * often, for instance to order or prune moves near the frontier.  Both
+ * score the position from the point of view of the player to move, larger
+ * being better for that player.
+ * 
+ * Evaluators may keep working storage between calls, so a single evaluator
+ * must not be shared by searches running at the same time.
+ */
+public interface Evaluator
+{
+	/**
+	 * Evaluate a position in full.
+	 * 
+	 * @param board			The current board state.
+	 * @param activePlayer	The player whose turn it is.
+	 * @param turn			The current turn number.
+	 * @return				The score for the active player of the given board
+	 * 						position.
+	 */
+	public int evaluate(Board board, int activePlayer, int turn);
+	
+	/**
+	 * Estimate the value of a position cheaply.
+	 * 
+	 * @param board			The current board state.
+	 * @param activePlayer	The player whose turn it is.
+	 * @param turn			The current turn number.
+	 * @return				An estimate of the score for the active player of
+	 * 						the given board position.
+	 */
+	public int estimate(Board board, int activePlayer, int turn);
+}
@@ -0,0 +1,147 @@
+package snozama.amazons.mechanics;
+
+/**
+ * Flood fill and connected component labelling over sets of squares.
+ * 
+ * Sets of squares are stored as two longs, squares 0-63 in the first and
+ * squares 64-99 in the second, as in {@link BitBoard}.  A fill grows a whole
+ * frontier by one step in every direction at once with shifts and masks,
+ * so it takes one pass per step of distance across the component rather
+ * than one call per square, and needs no recursion or explicit stack.
+ * 
+ * Connectivity is one of {@link Regions#FULL} (all eight neighbours),
+ * {@link Regions#LATERAL} (the four neighbours sharing an edge) or
+ * {@link Regions#DIAGONAL} (the four neighbours sharing a corner).
+ */
+public final class FloodFill
+{
+	/**
+	 * This class is not to be instantiated.
+	 */
+	private FloodFill()
+	{
+	}
+	
+	/**
+	 * Grow a set of squares to include every square of another set that is
+	 * connected to it.
+	 * 
+	 * @param region		The squares to start from; replaced by the
+	 * 						squares connected to them.  Must be a subset of
+	 * 						{@code within}.
+	 * @param within		The squares the region may grow into.
+	 * @param connectivity	Which neighbours are connected: {@code FULL},
+	 * 						{@code LATERAL} or {@code DIAGONAL}.
+	 */
+	public static void fill(long[] region, long[] within, int connectivity)
+	{
+		grow(region, 0, within[0], within[1], connectivity);
+	}
+	
+	/**
+	 * Split a set of squares into its connected components.
+	 * 
+	 * Components are numbered in the order their first square is met when
+	 * scanning the board row by row, each row from left to right.  Nothing
+	 * is allocated, so a caller holding its own component array may label
+	 * from any number of threads at once.
+	 * 
+	 * @param squares		The squares to split.
+	 * @param connectivity	Which neighbours are connected: {@code FULL},
+	 * 						{@code LATERAL} or {@code DIAGONAL}.
+	 * @param components	Array to store the components in: component
+	 * 						{@code i} is stored at {@code 2*i} (squares 0-63)
+	 * 						and {@code 2*i + 1} (squares 64-99).  Must hold
+	 * 						{@code 2*QueenRays.SQUARES} longs.
+	 * @return				The number of components.
+	 */
+	public static int label(long[] squares, int connectivity, long[] components)
+	{
+		long remainingLow = squares[0];
+		long remainingHigh = squares[1];
+		int count = 0;
+		
+		for (int row = 0; row < Board.SIZE && (remainingLow | remainingHigh) != 0; row++)
+		{
+			for (int col = 0; col < Board.SIZE; col++)
+			{
+				int square = QueenRays.square(row, col);
+				long remaining = square < 64 ? remainingLow : remainingHigh;
+				if ((remaining & (1L << square)) == 0)
+				{
+					continue;
+				}
+				
+				int index = 2*count;
+				components[index] = square < 64 ? 1L << square : 0;
+				components[index + 1] = square < 64 ? 0 : 1L << square;
+				grow(components, index, remainingLow, remainingHigh, connectivity);
+				
+				remainingLow &= ~components[index];
+				remainingHigh &= ~components[index + 1];
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Grow a set of squares stored in an array to its connected squares.
+	 * 
+	 * @param sets			The array holding the set.
+	 * @param index			Where the set starts: squares 0-63 at
+	 * 						{@code index}, squares 64-99 at
+	 * 						{@code index + 1}.
+	 * @param withinLow		The squares 0-63 the set may grow into.
+	 * @param withinHigh	The squares 64-99 the set may grow into.
+	 * @param connectivity	Which neighbours are connected.
+	 */
+	private static void grow(long[] sets, int index, long withinLow, long withinHigh, int connectivity)
+	{
+		// Lateral directions are 0-3 and diagonal directions 4-7.
+		int first = connectivity == Regions.DIAGONAL ? 4 : 0;
+		int last = connectivity == Regions.LATERAL ? 4 : QueenRays.DIRECTIONS;
+		
+		long low = sets[index];
+		long high = sets[index + 1];
+		long frontierLow = low;
+		long frontierHigh = high;
+		
+		while ((frontierLow | frontierHigh) != 0)
+		{
+			long stepLow = 0;
+			long stepHigh = 0;
+			
+			// Directions come in pairs: even directions increase the square
+			// index and odd directions decrease it by the same amount.
+			for (int d = first; d < last; d += 2)
+			{
+				int shift = QueenRays.SHIFT[d];
+				stepHigh |= ((frontierHigh << shift) | (frontierLow >>> (64 - shift))) & QueenRays.ENTER_HIGH[d];
+				stepLow |= (frontierLow << shift) & QueenRays.ENTER_LOW[d];
+				stepLow |= ((frontierLow >>> shift) | (frontierHigh << (64 - shift))) & QueenRays.ENTER_LOW[d + 1];
+				stepHigh |= (frontierHigh >>> shift) & QueenRays.ENTER_HIGH[d + 1];
+			}
+			
+			frontierLow = stepLow & withinLow & ~low;
+			frontierHigh = stepHigh & withinHigh & ~high;
+			low |= frontierLow;
+			high |= frontierHigh;
+		}
+		
+		sets[index] = low;
+		sets[index + 1] = high;
+	}
+	
+	/**
+	 * Count the squares in a set.
+	 * 
+	 * @param low		The squares 0-63 of the set.
+	 * @param high		The squares 64-99 of the set.
+	 * @return			The number of squares.
+	 */
+	public static int size(long low, long high)
+	{
+		return Long.bitCount(low) + Long.bitCount(high);
+	}
+}
@@ -78,14 +78,12 @@ public class MoveChoice {
 	 */
 	public MoveChoice(int move, Board board)
 	{
-		int[] decoded = MoveManager.decodeMove(move);
-		
-		colour = decoded[MoveManager.PLAYER_COLOUR];
-		amazonIndex = decoded[MoveManager.AMAZON_ARRAY_INDEX];
-		row_f = decoded[MoveManager.AMAZON_ROW_FINISH];
-		col_f = decoded[MoveManager.AMAZON_COLUMN_FINISH];
-		arrowRow = decoded[MoveManager.ARROW_ROW];
-		arrowCol = decoded[MoveManager.ARROW_COLUMN];
+		colour = MoveManager.colourOf(move);
+		amazonIndex = MoveManager.amazonIndexOf(move);
+		row_f = MoveManager.finishRowOf(move);
+		col_f = MoveManager.finishColumnOf(move);
+		arrowRow = MoveManager.arrowRowOf(move);
+		arrowCol = MoveManager.arrowColumnOf(move);
 		
 		byte position = board.amazons[colour][amazonIndex];
 		
@@ -9,15 +9,17 @@ import snozama.amazons.global.GlobalFunctions;
  * @author Graeme Douglas
  * @author Cody Clerke
  * 
- * Moves are encoded as 32-bit integers (shorts).  We divide the bits as follows:
- * 	Portion 0 - bits 0-3:	row of old amazon position.
- * 	Portion 1 - bits 4-7: 	column of old amazon position.
- * 	Portion 2 - bits 8-11:	row of new amazon position.
- *  Portion 3 - bits 12-15:	column of new amazon position.
- *  Portion 4 - bits 16-19:	row where new arrow placed.
- *  Portion 5 - bits 20-24:	column where new arrow placed.
- * 	Portion 6 - bits 25-28:	???
- * 	Portion 7 - bits 29-32:	???
+ * Moves are encoded as 32-bit integers built on square indices (see
+ * {@link QueenRays}).  We divide the bits as follows:
+ * 	bits 0-6:	square where the arrow is placed.
+ * 	bits 7-13:	square the amazon finishes in.
+ * 	bits 14-15:	index of the amazon in the board's amazon array.
+ * 	bit 16:		colour of the amazon.
+ * 
+ * The static accessors pull each part out with a fixed shift and mask, and
+ * rows and columns come from the {@link QueenRays} tables, so decoding a
+ * move never allocates.  No valid move encodes to 0, as the arrow can never
+ * land on the square the amazon finishes in.
  */
 public class MoveManager
 {
@@ -53,6 +55,41 @@ public class MoveManager
 	public static final int ARROW_COLUMN = 5;
 	/**************************************************************************/
 	
+	/*** Bit Layout Constants *************************************************/
+	/**
+	 * Shift of the square the amazon finishes in.
+	 */
+	private static final int FINISH_SHIFT = 7;
+	
+	/**
+	 * Shift of the index of the amazon.
+	 */
+	private static final int AMAZON_SHIFT = 14;
+	
+	/**
+	 * Shift of the colour of the amazon.
+	 */
+	private static final int COLOUR_SHIFT = 16;
+	
+	/**
+	 * Mask of a square index.
+	 */
+	private static final int SQUARE_MASK = 0x7f;
+	
+	/**
+	 * Mask of an amazon index.
+	 */
+	private static final int AMAZON_MASK = 0x3;
+	/**************************************************************************/
+	
+	/**
+	 * Upper bound on the number of moves available in any position: each of
+	 * the four amazons reaches at most {@link QueenRays#MAX_REACH} squares,
+	 * and can shoot to at most as many from each of them.  The opening
+	 * position has 2176 moves, but later positions can have more.
+	 */
+	public static final int MAX_MOVES = 4*QueenRays.MAX_REACH*QueenRays.MAX_REACH;
+	
 	/**
 	 * Array storing move data.
 	 */
@@ -68,6 +105,48 @@ public class MoveManager
 	 */
 	private int iteratorPosition;
 	
+	/**
+	 * Maximum number of amazon destinations in a position.
+	 */
+	private static final int MAX_DESTINATIONS = 4*QueenRays.MAX_REACH;
+	
+	/**
+	 * Board whose moves are being generated in stages, or {@code null} if
+	 * the moves were all added up front.
+	 */
+	private Board stagedBoard;
+	
+	/**
+	 * Colour of the player whose moves are being generated in stages.
+	 */
+	private int stagedColour;
+	
+	/**
+	 * Index in the amazons array of the amazon making each pending
+	 * destination.
+	 */
+	private int[] stagedAmazons;
+	
+	/**
+	 * Square of each pending amazon destination.
+	 */
+	private int[] stagedDestinations;
+	
+	/**
+	 * Number of amazon destinations found for the staged board.
+	 */
+	private int destinationCount;
+	
+	/**
+	 * Next destination whose arrow shots are still to be generated.
+	 */
+	private int nextDestination;
+	
+	/**
+	 * Scratch space for the arrow shots of a destination.
+	 */
+	private int[] arrowBuffer;
+	
 	/**
 	 * Constructor. Create a new MoveManager.
 	 * 
@@ -86,13 +165,14 @@ public class MoveManager
 	 */
 	public MoveManager()
 	{
-		moves = new int[2176];
+		moves = new int[MAX_MOVES];
 		nextPos = 0;
 		iteratorPosition = 0;
 	}
 	
 	/**
-	 * Get the current number of moves being managed.
+	 * Get the current number of moves being managed.  While moves are being
+	 * generated in stages, this is the number generated so far.
 	 * 
 	 * @return	The current number of moves being managed.
 	 */
@@ -136,15 +216,15 @@ public class MoveManager
 	 */
 	public static boolean applyUnmanagedMove(Board board, int move)
 	{
-		int index = staticDecodePortion(move, AMAZON_ARRAY_INDEX);
-		int colour = staticDecodePortion(move, PLAYER_COLOUR);
+		int index = amazonIndexOf(move);
+		int colour = colourOf(move);
 		int row_s = Board.decodeAmazonRow(board.amazons[colour][index]);
 		int col_s = Board.decodeAmazonColumn(board.amazons[colour][index]);
 		return board.move(row_s, col_s,
-				staticDecodePortion(move, AMAZON_ROW_FINISH),
-				staticDecodePortion(move, AMAZON_COLUMN_FINISH),
-				staticDecodePortion(move, ARROW_ROW),
-				staticDecodePortion(move, ARROW_COLUMN), colour);
+				finishRowOf(move),
+				finishColumnOf(move),
+				arrowRowOf(move),
+				arrowColumnOf(move), colour);
 	}
 	
 	/**
@@ -159,14 +239,13 @@ public class MoveManager
 	 */
 	public boolean undoMove(Board board, int index, int row_s, int col_s)
 	{
-		board.board[getArrowRow(index)][getArrowColumn(index)] = Board.EMPTY;
+		board.vacate(getArrowRow(index), getArrowColumn(index));
 		
-		board.board[getFinishRow(index)][getFinishColumn(index)] = Board.EMPTY;
+		board.vacate(getFinishRow(index), getFinishColumn(index));
 		
-		board.board[row_s][col_s] = Board.OCCUPIED;
+		board.occupy(row_s, col_s, Board.amazonContent(getColour(index)));
 		
-		board.amazons[getColour(index)][getAmazonIndex(index)]=
-				Board.encodeAmazonPosition(row_s, col_s);
+		board.placeAmazon(getColour(index), getAmazonIndex(index), row_s, col_s);
 		
 		return true;
 	}
@@ -183,43 +262,121 @@ public class MoveManager
 	 */
 	public static boolean undoUnmanagedMove(Board board, int move, int row_s, int col_s)
 	{
-		int index = staticDecodePortion(move, AMAZON_ARRAY_INDEX);
-		int colour = staticDecodePortion(move, PLAYER_COLOUR);
+		int index = amazonIndexOf(move);
+		int colour = colourOf(move);
 		
-		board.board[staticDecodePortion(move, ARROW_ROW)][staticDecodePortion(move, ARROW_COLUMN)] = Board.EMPTY;
+		board.vacate(arrowRowOf(move), arrowColumnOf(move));
 		
-		board.board[staticDecodePortion(move, AMAZON_ROW_FINISH)][staticDecodePortion(move, AMAZON_COLUMN_FINISH)] = Board.EMPTY;
+		board.vacate(finishRowOf(move), finishColumnOf(move));
 		
-		board.board[row_s][col_s] = Board.OCCUPIED;
+		board.occupy(row_s, col_s, Board.amazonContent(colour));
 		
-		board.amazons[colour][index]=
-				Board.encodeAmazonPosition(row_s, col_s);
+		board.placeAmazon(colour, index, row_s, col_s);
 		
 		return true;
 	}
 	
 	/**
-	 * Decode a portion of a move.
+	 * Encode a move.
 	 * 
-	 * @param index		The index of the move to be decoded.
-	 * @param portion	Which set of 4 bits to be decoded.		
-	 * @return			The decoded portion of the move at index.
+	 * @param colour	The player's/amazon's colour.
+	 * @param arr_i		The index of the amazon in the board's amazon array.
+	 * @param finish	The square the amazon ends in.
+	 * @param arrow		The square the arrow is placed in.
+	 * @return			The encoded move.
+	 */
+	public static int encodeMove(int colour, int arr_i, int finish, int arrow)
+	{
+		return (colour << COLOUR_SHIFT) | (arr_i << AMAZON_SHIFT) |
+				(finish << FINISH_SHIFT) | arrow;
+	}
+	
+	/**
+	 * Get the colour of the amazon moved by an encoded move.
+	 * 
+	 * @param move		The encoded move.
+	 * @return			The colour of the amazon.
+	 */
+	public static int colourOf(int move)
+	{
+		return move >>> COLOUR_SHIFT;
+	}
+	
+	/**
+	 * Get the index of the amazon moved by an encoded move.
+	 * 
+	 * @param move		The encoded move.
+	 * @return			The index of the amazon in the board's amazon array.
+	 */
+	public static int amazonIndexOf(int move)
+	{
+		return (move >>> AMAZON_SHIFT) & AMAZON_MASK;
+	}
+	
+	/**
+	 * Get the square an encoded move takes the amazon to.
+	 * 
+	 * @param move		The encoded move.
+	 * @return			The square the amazon finishes in.
+	 */
+	public static int finishSquareOf(int move)
+	{
+		return (move >>> FINISH_SHIFT) & SQUARE_MASK;
+	}
+	
+	/**
+	 * Get the square an encoded move places its arrow in.
+	 * 
+	 * @param move		The encoded move.
+	 * @return			The square the arrow is placed in.
+	 */
+	public static int arrowSquareOf(int move)
+	{
+		return move & SQUARE_MASK;
+	}
+	
+	/**
+	 * Get the row an encoded move takes the amazon to.
+	 * 
+	 * @param move		The encoded move.
+	 * @return			The row the amazon finishes in.
 	 */
-	private int decodePortion(int index, int portion)
+	public static int finishRowOf(int move)
 	{
-		return ((moves[index] & (0xf << (4*portion))) >> (4*portion));
+		return QueenRays.ROW[finishSquareOf(move)];
 	}
 	
 	/**
-	 * Decode a portion of an arbitrary move.
+	 * Get the column an encoded move takes the amazon to.
 	 * 
-	 * @param move		The move to decode from.
-	 * @param portion	Which set of 4 bits to be decoded.		
-	 * @return			The decoded portion of the move at index.
+	 * @param move		The encoded move.
+	 * @return			The column the amazon finishes in.
 	 */
-	private static int staticDecodePortion(int move, int portion)
+	public static int finishColumnOf(int move)
 	{
-		return ((move & (0xf << (4*portion))) >> (4*portion));
+		return QueenRays.COLUMN[finishSquareOf(move)];
+	}
+	
+	/**
+	 * Get the row an encoded move places its arrow in.
+	 * 
+	 * @param move		The encoded move.
+	 * @return			The row of the arrow.
+	 */
+	public static int arrowRowOf(int move)
+	{
+		return QueenRays.ROW[arrowSquareOf(move)];
+	}
+	
+	/**
+	 * Get the column an encoded move places its arrow in.
+	 * 
+	 * @param move		The encoded move.
+	 * @return			The column of the arrow.
+	 */
+	public static int arrowColumnOf(int move)
+	{
+		return QueenRays.COLUMN[arrowSquareOf(move)];
 	}
 	
 	/**
@@ -231,7 +388,7 @@ public class MoveManager
 	 */
 	public static int getAmazonIndexFromUnmanagedMove(int move, Board board)
 	{
-		return staticDecodePortion(move, AMAZON_ARRAY_INDEX);
+		return amazonIndexOf(move);
 	}
 	
 	/**
@@ -243,26 +400,7 @@ public class MoveManager
 	 */
 	public static int getPlayerColourFromUnmanagedMove(int move, Board board)
 	{
-		return staticDecodePortion(move, PLAYER_COLOUR);
-	}
-	
-	/**
-	 * Encode information to a portion of a move at an index.
-	 * 
-	 * @param index		The index of the move to encode data into.
-	 * @param portion	The portion of the m0e to encode the data to.
-	 * @param toEncode	The data that is to be encoded. Necessary data should
-	 * 					be in the lowest 4 bits.
-	 * @return			{@code true} if the data was encoded, {@code false} otherwise.
-	 */
-	private boolean encodePortion(int index, int portion, int toEncode)
-	{
-		// First clear the necessary bits.
-		moves[index] &= ~(0xf << (4*portion));
-		
-		// Now set them.
-		moves[index] |= (toEncode << (4*portion));
-		return true;
+		return colourOf(move);
 	}
 	
 	/**
@@ -274,16 +412,22 @@ public class MoveManager
 	 * Part 3: Finishing column of the moving amazon.
 	 * Part 4: Row of the arrow.
 	 * Part 5: Column of the arrow.
+	 * 
+	 * This allocates the array it returns; the search should use the static
+	 * accessors such as {@link #finishRowOf(int)} instead.
+	 * 
 	 * @param move		The move to be decoded.
 	 * @return			An array of move parts.
 	 */
 	public static int[] decodeMove(int move)
 	{
 		int[] moveParts = new int[6];
-		for (int i = 0; i <= 5; i++)
-		{
-			moveParts[i] = ((move & (0xf << (4*i))) >> (4*i));
-		}
+		moveParts[PLAYER_COLOUR] = colourOf(move);
+		moveParts[AMAZON_ARRAY_INDEX] = amazonIndexOf(move);
+		moveParts[AMAZON_ROW_FINISH] = finishRowOf(move);
+		moveParts[AMAZON_COLUMN_FINISH] = finishColumnOf(move);
+		moveParts[ARROW_ROW] = arrowRowOf(move);
+		moveParts[ARROW_COLUMN] = arrowColumnOf(move);
 		return moveParts;
 	}
 	
@@ -320,15 +464,8 @@ public class MoveManager
 		if (nextPos >= moves.length)
 			return false;
 		
-		// Encode all the data.
-		encodePortion(nextPos, PLAYER_COLOUR, colour);
-		encodePortion(nextPos, AMAZON_ARRAY_INDEX, arr_i);
-		encodePortion(nextPos, AMAZON_ROW_FINISH, arow_f);
-		encodePortion(nextPos, AMAZON_COLUMN_FINISH, acol_f);
-		encodePortion(nextPos, ARROW_ROW, arrowrow);
-		encodePortion(nextPos, ARROW_COLUMN, arrowcol);
-		
-		nextPos++;
+		moves[nextPos++] = encodeMove(colour, arr_i,
+				QueenRays.square(arow_f, acol_f), QueenRays.square(arrowrow, arrowcol));
 		return true;
 	}
 	
@@ -340,7 +477,7 @@ public class MoveManager
 	 */
 	public int getColour(int index)
 	{
-		return decodePortion(index, PLAYER_COLOUR);
+		return colourOf(moves[index]);
 	}
 	
 	/**
@@ -351,7 +488,7 @@ public class MoveManager
 	 */
 	public int getAmazonIndex(int index)
 	{
-		return decodePortion(index, AMAZON_ARRAY_INDEX);
+		return amazonIndexOf(moves[index]);
 	}
 	
 	/**
@@ -362,7 +499,7 @@ public class MoveManager
 	 */
 	public int getFinishRow(int index)
 	{
-		return decodePortion(index, AMAZON_ROW_FINISH);
+		return finishRowOf(moves[index]);
 	}
 	
 	/**
@@ -373,7 +510,7 @@ public class MoveManager
 	 */
 	public int getFinishColumn(int index)
 	{
-		return decodePortion(index, AMAZON_COLUMN_FINISH);
+		return finishColumnOf(moves[index]);
 	}
 	
 	/**
@@ -384,7 +521,7 @@ public class MoveManager
 	 */
 	public int getArrowRow(int index)
 	{
-		return decodePortion(index, ARROW_ROW);
+		return arrowRowOf(moves[index]);
 	}
 	
 	/**
@@ -395,7 +532,87 @@ public class MoveManager
 	 */
 	public int getArrowColumn(int index)
 	{
-		return decodePortion(index, ARROW_COLUMN);
+		return arrowColumnOf(moves[index]);
+	}
+	
+	/**
+	 * Remove every move, keeping the storage so the manager can be filled
+	 * again without allocating.  Do not reuse a manager that has been
+	 * condensed, as it may be too small to hold a new set of moves.
+	 */
+	public void clear()
+	{
+		nextPos = 0;
+		iteratorPosition = 0;
+		stagedBoard = null;
+		destinationCount = 0;
+		nextDestination = 0;
+	}
+	
+	/**
+	 * Start generating the moves of a board in stages, replacing whatever
+	 * the manager held.  Only the amazon destinations are found now.  The
+	 * arrow shots from each destination are added when the iterator reaches
+	 * them, so a search that cuts off early never generates the rest.  Moves
+	 * come out in the same order as {@link Board#getSuccessors(int)}.
+	 * 
+	 * The board must be in the same position whenever
+	 * {@link #hasIterations()} is called.
+	 * 
+	 * @param board		The board to generate moves for.
+	 * @param colour	The colour of the player to move.
+	 */
+	public void stage(Board board, int colour)
+	{
+		clear();
+		if (stagedDestinations == null)
+		{
+			stagedAmazons = new int[MAX_DESTINATIONS];
+			stagedDestinations = new int[MAX_DESTINATIONS];
+			arrowBuffer = new int[QueenRays.MAX_REACH];
+		}
+		
+		stagedBoard = board;
+		stagedColour = colour;
+		for (int j = 0; j < board.amazons[colour].length; j++)
+		{
+			int from = board.amazons[colour][j];
+			int count = board.getQueenReach(from, from, arrowBuffer);
+			for (int k = 0; k < count; k++)
+			{
+				stagedAmazons[destinationCount] = j;
+				stagedDestinations[destinationCount++] = arrowBuffer[k];
+			}
+		}
+	}
+	
+	/**
+	 * Add the moves shooting from the next pending amazon destination.
+	 */
+	private void expandDestination()
+	{
+		int j = stagedAmazons[nextDestination];
+		int to = stagedDestinations[nextDestination++];
+		int from = stagedBoard.amazons[stagedColour][j];
+		
+		// The amazon may shoot back through the square it left.
+		int shots = stagedBoard.getQueenReach(to, from, arrowBuffer);
+		for (int a = 0; a < shots; a++)
+		{
+			add(encodeMove(stagedColour, j, to, arrowBuffer[a]));
+		}
+	}
+	
+	/**
+	 * Generate every move still pending from {@link #stage(Board, int)}.
+	 * Does nothing if the moves were added up front.
+	 */
+	public void finishGeneration()
+	{
+		while (nextDestination < destinationCount)
+		{
+			expandDestination();
+		}
 	}
 	
 	/**
@@ -415,6 +632,10 @@ public class MoveManager
 	 */
 	public boolean hasIterations()
 	{
+		while (iteratorPosition == nextPos && nextDestination < destinationCount)
+		{
+			expandDestination();
+		}
 		return iteratorPosition < nextPos;
 	}
 	
@@ -436,6 +657,8 @@ public class MoveManager
 	 */
 	public boolean condense()
 	{
+		finishGeneration();
+		
 		if (nextPos == moves.length)
 			return true;
 		
@@ -459,6 +682,7 @@ public class MoveManager
 	 */
 	public boolean setSize(int size)
 	{
+		finishGeneration();
 		this.nextPos = size;
 		
 		return true;
@@ -466,22 +690,39 @@ public class MoveManager
 	
 	/**
 	 * Sort the moves according to some other array, in descending order.
+	 * Any moves still pending from {@link #stage(Board, int)} are generated
+	 * first.
 	 * 
 	 * @param sortBy	The array to the moves according to.  Likely going to be
 	 * 					heuristic scores.
 	 */
 	public void sort(int[] sortBy)
 	{
-		GlobalFunctions.dualQuickSort(this.moves, sortBy, 0, GlobalFunctions.min(size(), sortBy.length - 1), (byte)(-1));
+		finishGeneration();
+		GlobalFunctions.dualQuickSort(this.moves, sortBy, 0, GlobalFunctions.min(size(), sortBy.length) - 1, (byte)(-1));
 	}
 	
 	/**
-	 * Shuffle the set of moves randomly.
+	 * Shuffle the set of moves randomly.  Any moves still pending from
+	 * {@link #stage(Board, int)} are generated first.
 	 */
 	public void shuffle()
 	{
 		Random random = new Random();
 		random.nextInt();
+		shuffle(random);
+	}
+	
+	/**
+	 * Shuffle the set of moves randomly.  Any moves still pending from
+	 * {@link #stage(Board, int)} are generated first.
+	 * 
+	 * @param random	The source of randomness, which a caller shuffling
+	 * 					often should keep rather than create each time.
+	 */
+	public void shuffle(Random random)
+	{
+		finishGeneration();
 		for (int i = 0; i < nextPos; i++)
 		{
 			int j = i + random.nextInt(nextPos - i);
@@ -489,6 +730,24 @@ public class MoveManager
 		}
 	}
 	
+	/**
+	 * Shuffle the amazon destinations still pending from
+	 * {@link #stage(Board, int)}, without generating their arrow shots.  The
+	 * destinations are then reached in a random order, while the shots from
+	 * each one keep their usual order.
+	 * 
+	 * @param random	The source of randomness.
+	 */
+	public void shuffleDestinations(Random random)
+	{
+		for (int i = nextDestination; i < destinationCount; i++)
+		{
+			int j = i + random.nextInt(destinationCount - i);
+			GlobalFunctions.swap(stagedAmazons, i, j);
+			GlobalFunctions.swap(stagedDestinations, i, j);
+		}
+	}
+	
 	/**
 	 * Get the move at a given index.
 	 * 
@@ -0,0 +1,218 @@
+package snozama.amazons.mechanics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Performance test (perft) for move generation.
+ * 
+ * Perft counts the positions reachable from a position in exactly a given
+ * number of plies, using nothing but {@link Board#getSuccessors(int,
+ * MoveManager)}, {@link MoveManager#applyMove(Board, int)} and
+ * {@link MoveManager#undoMove(Board, int, int, int)}.  Comparing the counts
+ * against the stored {@link #REFERENCE_COUNTS} proves a board
+ * representation generates exactly the right moves, and timing the count
+ * measures how fast it does so.
+ */
+public class Perft
+{
+	/**
+	 * Names of the reference positions.
+	 */
+	public static final String[] REFERENCE_NAMES = {"opening", "middlegame", "endgame"};
+	
+	/**
+	 * The moves leading to each reference position from the opening, as
+	 * {row_s, col_s, row_f, col_f, arow, acol}.  White moves first and the
+	 * colours alternate.
+	 */
+	private static final int[][][] REFERENCE_MOVES = {
+		{},
+		{
+			{9, 3, 9, 5, 6, 8}, {0, 3, 8, 3, 8, 9}, {9, 6, 9, 8, 4, 3},
+			{8, 3, 8, 1, 1, 8}, {6, 0, 5, 0, 5, 9}, {0, 6, 8, 6, 7, 6},
+			{9, 5, 9, 4, 5, 4}, {8, 1, 3, 1, 4, 2}, {5, 0, 9, 0, 7, 2},
+			{8, 6, 5, 3, 7, 5}
+		},
+		{
+			{9, 6, 2, 6, 1, 5}, {0, 3, 4, 7, 4, 0}, {9, 3, 2, 3, 2, 5},
+			{3, 9, 1, 9, 7, 3}, {6, 9, 5, 8, 6, 9}, {4, 7, 7, 7, 8, 7},
+			{5, 8, 5, 2, 9, 6}, {1, 9, 4, 9, 4, 1}, {5, 2, 9, 2, 6, 2},
+			{0, 6, 0, 9, 9, 0}, {2, 3, 2, 0, 0, 2}, {0, 9, 1, 8, 0, 8},
+			{2, 6, 4, 6, 7, 9}, {1, 8, 3, 6, 2, 7}, {2, 0, 2, 2, 1, 3},
+			{3, 0, 3, 3, 4, 4}, {2, 2, 2, 3, 3, 4}, {7, 7, 6, 6, 6, 8},
+			{9, 2, 7, 2, 6, 3}, {3, 3, 3, 2, 7, 6}, {6, 0, 9, 3, 8, 3},
+			{6, 6, 5, 6, 6, 7}, {9, 3, 7, 5, 9, 5}, {3, 2, 2, 2, 2, 0},
+			{4, 6, 4, 5, 5, 5}, {2, 2, 1, 2, 0, 1}, {7, 5, 3, 9, 8, 4},
+			{4, 9, 4, 8, 1, 8}, {2, 3, 3, 3, 0, 0}, {1, 2, 3, 0, 0, 3},
+			{7, 2, 8, 2, 7, 1}, {3, 6, 2, 6, 0, 6}, {8, 2, 8, 0, 8, 1},
+			{5, 6, 3, 8, 3, 6}, {3, 3, 5, 1, 5, 0}, {3, 8, 2, 8, 3, 7},
+			{5, 1, 5, 4, 7, 4}, {3, 0, 2, 1, 3, 1}, {3, 9, 3, 8, 2, 9},
+			{4, 8, 4, 9, 4, 8}, {3, 8, 4, 7, 5, 8}, {2, 1, 3, 0, 2, 1},
+			{5, 4, 3, 2, 5, 4}, {2, 6, 1, 6, 1, 7}, {8, 0, 6, 0, 3, 3},
+			{2, 8, 3, 8, 3, 9}, {6, 0, 6, 1, 6, 0}, {1, 6, 0, 5, 0, 4},
+			{4, 5, 4, 6, 2, 4}, {0, 5, 1, 4, 2, 3}
+		}
+	};
+	
+	/**
+	 * Known perft counts of each reference position.  Element {@code d-1}
+	 * is the count to depth {@code d}.
+	 */
+	public static final long[][] REFERENCE_COUNTS = {
+		{2176L, 4307152L},
+		{585L, 733564L, 451512525L},
+		{96L, 547L, 47867L, 314614L, 23860691L}
+	};
+	
+	/**
+	 * This class is not to be instantiated.
+	 */
+	private Perft()
+	{
+	}
+	
+	/**
+	 * Set up a reference position on a board.
+	 * 
+	 * @param board		A board in the opening position, which will be moved
+	 * 					into the reference position.
+	 * @param position	The index of the reference position.
+	 * @return			The colour of the player to move in the position.
+	 */
+	public static int setUp(Board board, int position)
+	{
+		int colour = Board.WHITE;
+		for (int[] m : REFERENCE_MOVES[position])
+		{
+			if (!board.move(m[0], m[1], m[2], m[3], m[4], m[5], colour))
+			{
+				throw new IllegalStateException("Illegal reference move in " + REFERENCE_NAMES[position]);
+			}
+			colour = 1 - colour;
+		}
+		return colour;
+	}
+	
+	/**
+	 * Count the positions reachable in exactly {@code depth} plies.
+	 * 
+	 * @param board		The position to count from.  It is returned to the
+	 * 					same position once the count is done.
+	 * @param colour	The colour of the player to move.
+	 * @param depth		The number of plies to look ahead.
+	 * @return			The number of positions reached.
+	 */
+	public static long perft(Board board, int colour, int depth)
+	{
+		if (depth == 0)
+		{
+			return 1;
+		}
+		
+		MoveManager[] stack = new MoveManager[depth];
+		for (int i = 0; i < depth; i++)
+		{
+			stack[i] = new MoveManager();
+		}
+		return count(board, colour, depth, stack);
+	}
+	
+	/**
+	 * Count the positions reachable in exactly {@code depth} plies,
+	 * splitting the moves from the root between several threads.  Every
+	 * thread works on its own copy of the board.
+	 * 
+	 * @param board		The position to count from.  It is not modified.
+	 * @param colour	The colour of the player to move.
+	 * @param depth		The number of plies to look ahead.
+	 * @param threads	The number of threads to use.
+	 * @return			The number of positions reached.
+	 */
+	public static long perft(Board board, final int colour, final int depth, int threads)
+	{
+		if (depth < 2)
+		{
+			return perft(board.copy(), colour, depth);
+		}
+		
+		final MoveManager root = board.getSuccessors(colour);
+		final Board start = board.copy();
+		
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<Long>> results = new ArrayList<Future<Long>>();
+			for (int i = 0; i < root.size(); i++)
+			{
+				final int index = i;
+				results.add(pool.submit(new Callable<Long>() {
+					@Override
+					public Long call()
+					{
+						Board child = start.copy();
+						root.applyMove(child, index);
+						return perft(child, 1 - colour, depth - 1);
+					}
+				}));
+			}
+			
+			long nodes = 0;
+			for (Future<Long> result : results)
+			{
+				nodes += result.get();
+			}
+			return nodes;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Perft interrupted", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Perft failed", e.getCause());
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Recursive part of perft.  The last ply is counted without being
+	 * played.
+	 * 
+	 * @param board		The position to count from.
+	 * @param colour	The colour of the player to move.
+	 * @param depth		The number of plies left to look ahead, at least 1.
+	 * @param stack		Move storage for each remaining ply.
+	 * @return			The number of positions reached.
+	 */
+	private static long count(Board board, int colour, int depth, MoveManager[] stack)
+	{
+		MoveManager successors = board.getSuccessors(colour, stack[depth - 1]);
+		if (depth == 1)
+		{
+			return successors.size();
+		}
+		
+		long nodes = 0;
+		for (int i = 0; i < successors.size(); i++)
+		{
+			byte position = board.amazons[colour][successors.getAmazonIndex(i)];
+			int row_s = Board.decodeAmazonRow(position);
+			int col_s = Board.decodeAmazonColumn(position);
+			
+			successors.applyMove(board, i);
+			nodes += count(board, 1 - colour, depth - 1, stack);
+			successors.undoMove(board, i, row_s, col_s);
+		}
+		return nodes;
+	}
+}
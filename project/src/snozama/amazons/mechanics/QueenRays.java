@@ -0,0 +1,255 @@
+package snozama.amazons.mechanics;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed queen rays for every square of the board.
+ * 
+ * Squares are numbered the same way amazon positions are encoded (see
+ * {@link Board#encodeAmazonPosition(int, int)}), giving square indices
+ * 0-99.  For each square and each of the eight queen directions the table
+ * holds the squares along that direction, ordered outwards from the square
+ * and stopping at the edge of the board.  Walking a ray therefore needs no
+ * bounds checks: move generation and the heuristics only have to stop at
+ * the first occupied square.
+ */
+public final class QueenRays
+{
+	/**
+	 * Direction to the right (increasing column).
+	 */
+	public static final int RIGHT = 0;
+	
+	/**
+	 * Direction to the left (decreasing column).
+	 */
+	public static final int LEFT = 1;
+	
+	/**
+	 * Direction downwards (increasing row).
+	 */
+	public static final int DOWN = 2;
+	
+	/**
+	 * Direction upwards (decreasing row).
+	 */
+	public static final int UP = 3;
+	
+	/**
+	 * Direction diagonally (\) to the right.
+	 */
+	public static final int DIAGONAL_RIGHT = 4;
+	
+	/**
+	 * Direction diagonally (\) to the left.
+	 */
+	public static final int DIAGONAL_LEFT = 5;
+	
+	/**
+	 * Direction anti-diagonally (/) to the right.
+	 */
+	public static final int ANTI_DIAGONAL_RIGHT = 6;
+	
+	/**
+	 * Direction anti-diagonally (/) to the left.
+	 */
+	public static final int ANTI_DIAGONAL_LEFT = 7;
+	
+	/**
+	 * The number of queen directions.
+	 */
+	public static final int DIRECTIONS = 8;
+	
+	/**
+	 * Row offset of each direction.
+	 */
+	static final int[] ROW_STEP = {0, 0, 1, -1, 1, -1, -1, 1};
+	
+	/**
+	 * Column offset of each direction.
+	 */
+	static final int[] COLUMN_STEP = {1, -1, 0, 0, 1, -1, 1, -1};
+	
+	/**
+	 * The number of squares on the board.
+	 */
+	public static final int SQUARES = Board.SIZE*Board.SIZE;
+	
+	/**
+	 * The largest number of squares a queen can reach on an empty board,
+	 * attained on the four centre squares.
+	 */
+	public static final int MAX_REACH = 35;
+	
+	/**
+	 * The rays of each square.  First index is the square, second the
+	 * direction; the array found holds the squares along the ray, nearest
+	 * first.
+	 */
+	public static final int[][][] RAYS = new int[SQUARES][DIRECTIONS][];
+	
+	/**
+	 * The direction leading from one square to another, indexed by
+	 * {@code from*SQUARES + to}, or {@code -1} if the squares do not share a
+	 * row, column or diagonal.
+	 */
+	public static final byte[] DIRECTION = new byte[SQUARES*SQUARES];
+	
+	/**
+	 * The squares strictly between two squares on a common line, as a set
+	 * of squares 0-63.  Indexed by {@code from*SQUARES + to}; empty if the
+	 * squares are not on a common line.
+	 */
+	public static final long[] BETWEEN_LOW = new long[SQUARES*SQUARES];
+	
+	/**
+	 * The squares strictly between two squares on a common line, as a set
+	 * of squares 64-99 (square {@code s} at bit {@code s - 64}).  Indexed
+	 * as {@link #BETWEEN_LOW}.
+	 */
+	public static final long[] BETWEEN_HIGH = new long[SQUARES*SQUARES];
+	
+	/**
+	 * The (up to eight) squares adjacent to each square.
+	 */
+	public static final int[][] NEIGHBOURS = new int[SQUARES][];
+	
+	/**
+	 * The square index offset of each direction.  Every even direction has
+	 * a positive offset and is followed by the opposite direction, so a set
+	 * of squares stored as two longs (squares 0-63, then 64-99) steps along
+	 * an even direction with a left shift and along an odd one with a right
+	 * shift.
+	 */
+	static final int[] SHIFT = new int[DIRECTIONS];
+	
+	/**
+	 * For each direction, the squares that can be entered by a step in that
+	 * direction, squares 0-63.  Masking a shifted set with these removes the
+	 * squares that wrapped around an edge of the board.
+	 */
+	static final long[] ENTER_LOW = new long[DIRECTIONS];
+	
+	/**
+	 * For each direction, the squares that can be entered by a step in that
+	 * direction, squares 64-99.
+	 */
+	static final long[] ENTER_HIGH = new long[DIRECTIONS];
+	
+	/**
+	 * The row of each square.
+	 */
+	public static final int[] ROW = new int[SQUARES];
+	
+	/**
+	 * The column of each square.
+	 */
+	public static final int[] COLUMN = new int[SQUARES];
+	
+	static
+	{
+		for (int square = 0; square < SQUARES; square++)
+		{
+			ROW[square] = Board.decodeAmazonRow((byte)square);
+			COLUMN[square] = Board.decodeAmazonColumn((byte)square);
+		}
+		
+		int[] buffer = new int[Board.SIZE];
+		for (int square = 0; square < SQUARES; square++)
+		{
+			for (int d = 0; d < DIRECTIONS; d++)
+			{
+				int length = 0;
+				for (int r = ROW[square] + ROW_STEP[d], c = COLUMN[square] + COLUMN_STEP[d];
+						r > -1 && r < Board.SIZE && c > -1 && c < Board.SIZE;
+						r += ROW_STEP[d], c += COLUMN_STEP[d])
+				{
+					buffer[length++] = square(r, c);
+				}
+				
+				RAYS[square][d] = new int[length];
+				System.arraycopy(buffer, 0, RAYS[square][d], 0, length);
+			}
+		}
+		
+		for (int square = 0; square < SQUARES; square++)
+		{
+			int length = 0;
+			for (int d = 0; d < DIRECTIONS; d++)
+			{
+				if (RAYS[square][d].length > 0)
+				{
+					buffer[length++] = RAYS[square][d][0];
+				}
+			}
+			
+			NEIGHBOURS[square] = new int[length];
+			System.arraycopy(buffer, 0, NEIGHBOURS[square], 0, length);
+		}
+		
+		for (int d = 0; d < DIRECTIONS; d++)
+		{
+			SHIFT[d] = COLUMN_STEP[d]*Board.SIZE + ROW_STEP[d];
+			for (int square = 0; square < SQUARES; square++)
+			{
+				int[] ray = RAYS[square][d];
+				if (ray.length > 0)
+				{
+					if (ray[0] < 64)
+					{
+						ENTER_LOW[d] |= 1L << ray[0];
+					}
+					else
+					{
+						ENTER_HIGH[d] |= 1L << ray[0];
+					}
+				}
+			}
+		}
+		
+		Arrays.fill(DIRECTION, (byte)-1);
+		for (int square = 0; square < SQUARES; square++)
+		{
+			for (int d = 0; d < DIRECTIONS; d++)
+			{
+				long low = 0;
+				long high = 0;
+				for (int target : RAYS[square][d])
+				{
+					int pair = square*SQUARES + target;
+					DIRECTION[pair] = (byte)d;
+					BETWEEN_LOW[pair] = low;
+					BETWEEN_HIGH[pair] = high;
+					
+					if (target < 64)
+					{
+						low |= 1L << target;
+					}
+					else
+					{
+						high |= 1L << target;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * This class is not to be instantiated.
+	 */
+	private QueenRays()
+	{
+	}
+	
+	/**
+	 * Get the square index of a (row, col) position.
+	 * 
+	 * @param row		The row of the position.
+	 * @param col		The column of the position.
+	 * @return			The square index of the position.
+	 */
+	public static int square(int row, int col)
+	{
+		return col*Board.SIZE + row;
+	}
+}
@@ -0,0 +1,229 @@
+package snozama.amazons.mechanics;
+
+/**
+ * Occupancy-indexed lookup of the squares a queen can reach.
+ * 
+ * Every square lies on four lines: its row, its column, its diagonal (\)
+ * and its anti-diagonal (/).  The occupancy of a line fits in
+ * {@link #LINE_BITS} bits, one per position along the line, so the squares a
+ * queen can slide to along that line are a pure function of its position
+ * and the line occupancy.  That function is precomputed once in
+ * {@link #REACH}, turning the reach of a queen into four table lookups.
+ * 
+ * Positions along a line are the column of the square, except on columns
+ * where it is the row.  Positions that fall off the board (diagonals are
+ * shorter than ten squares) are permanently marked as occupied in
+ * {@link #OFF_BOARD}, so a single table serves lines of every length.
+ * 
+ * Squares are numbered as in {@link QueenRays}.
+ */
+public final class QueenReach
+{
+	/**
+	 * Orientation of the row through a square.
+	 */
+	public static final int HORIZONTAL = 0;
+	
+	/**
+	 * Orientation of the column through a square.
+	 */
+	public static final int VERTICAL = 1;
+	
+	/**
+	 * Orientation of the diagonal (\) through a square.
+	 */
+	public static final int DIAGONAL = 2;
+	
+	/**
+	 * Orientation of the anti-diagonal (/) through a square.
+	 */
+	public static final int ANTI_DIAGONAL = 3;
+	
+	/**
+	 * The number of line orientations.
+	 */
+	public static final int ORIENTATIONS = 4;
+	
+	/**
+	 * The number of bits in a line occupancy.
+	 */
+	public static final int LINE_BITS = Board.SIZE;
+	
+	/**
+	 * The number of lines on the board: ten rows, ten columns, nineteen
+	 * diagonals and nineteen anti-diagonals.
+	 */
+	public static final int LINES = 2*Board.SIZE + 2*(2*Board.SIZE - 1);
+	
+	/**
+	 * The line through each square.  First index is the square, second the
+	 * orientation.
+	 */
+	public static final int[][] LINE = new int[QueenRays.SQUARES][ORIENTATIONS];
+	
+	/**
+	 * The position of each square along its lines.  First index is the
+	 * square, second the orientation.
+	 */
+	public static final int[][] POSITION = new int[QueenRays.SQUARES][ORIENTATIONS];
+	
+	/**
+	 * The square at each position of each line, or {@code -1} if the
+	 * position is off the board.
+	 */
+	public static final int[][] LINE_SQUARES = new int[LINES][LINE_BITS];
+	
+	/**
+	 * The positions of each line that are off the board.  A line occupancy
+	 * must always include these bits.
+	 */
+	public static final int[] OFF_BOARD = new int[LINES];
+	
+	/**
+	 * The positions a queen can reach along a line.  Indexed by
+	 * {@code (position << LINE_BITS) | occupancy}.
+	 */
+	static final int[] REACH = new int[LINE_BITS << LINE_BITS];
+	
+	/**
+	 * The number of positions a queen can reach along a line, indexed as
+	 * {@link #REACH}.
+	 */
+	static final byte[] REACH_COUNT = new byte[LINE_BITS << LINE_BITS];
+	
+	static
+	{
+		for (int line = 0; line < LINES; line++)
+		{
+			OFF_BOARD[line] = (1 << LINE_BITS) - 1;
+			for (int pos = 0; pos < LINE_BITS; pos++)
+			{
+				LINE_SQUARES[line][pos] = -1;
+			}
+		}
+		
+		for (int row = 0; row < Board.SIZE; row++)
+		{
+			for (int col = 0; col < Board.SIZE; col++)
+			{
+				int square = QueenRays.square(row, col);
+				
+				assign(square, HORIZONTAL, row, col);
+				assign(square, VERTICAL, Board.SIZE + col, row);
+				assign(square, DIAGONAL, 2*Board.SIZE + (row - col + Board.SIZE - 1), col);
+				assign(square, ANTI_DIAGONAL, 2*Board.SIZE + (2*Board.SIZE - 1) + (row + col), col);
+			}
+		}
+		
+		for (int pos = 0; pos < LINE_BITS; pos++)
+		{
+			for (int occupancy = 0; occupancy < (1 << LINE_BITS); occupancy++)
+			{
+				int reach = 0;
+				for (int p = pos + 1; p < LINE_BITS && (occupancy & (1 << p)) == 0; p++)
+				{
+					reach |= 1 << p;
+				}
+				for (int p = pos - 1; p > -1 && (occupancy & (1 << p)) == 0; p--)
+				{
+					reach |= 1 << p;
+				}
+				REACH[(pos << LINE_BITS) | occupancy] = reach;
+				REACH_COUNT[(pos << LINE_BITS) | occupancy] = (byte)Integer.bitCount(reach);
+			}
+		}
+	}
+	
+	/**
+	 * Place a square on a line.
+	 * 
+	 * @param square		The square.
+	 * @param orientation	The orientation of the line.
+	 * @param line			The line.
+	 * @param pos			The position of the square along the line.
+	 */
+	private static void assign(int square, int orientation, int line, int pos)
+	{
+		LINE[square][orientation] = line;
+		POSITION[square][orientation] = pos;
+		LINE_SQUARES[line][pos] = square;
+		OFF_BOARD[line] &= ~(1 << pos);
+	}
+	
+	/**
+	 * This class is not to be instantiated.
+	 */
+	private QueenReach()
+	{
+	}
+	
+	/**
+	 * Get the positions a queen can reach along a line.
+	 * 
+	 * @param pos			The position of the queen along the line.
+	 * @param occupancy		The occupancy of the line, including
+	 * 						{@link #OFF_BOARD} positions.
+	 * @return				The reachable positions, one bit per position.
+	 */
+	public static int reach(int pos, int occupancy)
+	{
+		return REACH[(pos << LINE_BITS) | occupancy];
+	}
+	
+	/**
+	 * Count the positions a queen can reach along a line.
+	 * 
+	 * @param pos			The position of the queen along the line.
+	 * @param occupancy		The occupancy of the line, including
+	 * 						{@link #OFF_BOARD} positions.
+	 * @return				The number of reachable positions.
+	 */
+	public static int count(int pos, int occupancy)
+	{
+		return REACH_COUNT[(pos << LINE_BITS) | occupancy];
+	}
+	
+	/**
+	 * Count the moves an amazon has: every square it can move to, times
+	 * every square it can then shoot an arrow to.
+	 * 
+	 * Nothing is enumerated beyond the destinations.  Along the line the
+	 * amazon moves on, the destinations and the square it leaves form one
+	 * unblocked segment, so each of the {@code k} destinations on that line
+	 * can shoot to the other {@code k} squares of the segment.  The other
+	 * three lines through a destination do not pass through the square the
+	 * amazon left, so their counts are read straight from
+	 * {@link #REACH_COUNT}.
+	 * 
+	 * @param square	The square the amazon stands on.
+	 * @param lines		The occupancy of every line of the board, as filled
+	 * 					in by {@link Board#getLineOccupancy(int[])}.
+	 * @return			The number of moves.
+	 */
+	public static int countMoves(int square, int[] lines)
+	{
+		int moves = 0;
+		for (int o = 0; o < ORIENTATIONS; o++)
+		{
+			int line = LINE[square][o];
+			int bits = REACH[(POSITION[square][o] << LINE_BITS) | lines[line]];
+			int k = Integer.bitCount(bits);
+			moves += k*k;
+			
+			for (; bits != 0; bits &= bits - 1)
+			{
+				int target = LINE_SQUARES[line][Integer.numberOfTrailingZeros(bits)];
+				int[] targetLines = LINE[target];
+				int[] targetPositions = POSITION[target];
+				for (int other = 0; other < ORIENTATIONS; other++)
+				{
+					if (other != o)
+					{
+						moves += REACH_COUNT[(targetPositions[other] << LINE_BITS) | lines[targetLines[other]]];
+					}
+				}
+			}
+		}
+		return moves;
+	}
+}
@@ -0,0 +1,807 @@
+package snozama.amazons.mechanics;
+
+/**
+ * Exact solver for small closed-off regions of the board.
+ * 
+ * A region (see {@link Regions}) that holds amazons of only one colour is
+ * a private reserve: its owner can make some number of moves in it and
+ * nobody else can ever move there.  That number is found exactly by a
+ * depth first search over the region alone.  A region holding one amazon
+ * of each colour is solved by negamax, scoring the difference between the
+ * moves each side gets to make there when both play only in that region.
+ * 
+ * Results are memoised by the shape of the region: the empty squares and
+ * amazons of every position met are translated to the top left corner of
+ * the board before being looked up, so a shape costs one lookup wherever
+ * on the board it turns up again.  The memo is a fixed size table in which
+ * a new result replaces the old one, and is kept between calls.
+ * 
+ * Searches that grow too large give up and report {@link #UNKNOWN}, and
+ * the memo remembers that they did, so the solver can be asked about any
+ * region from the leaves of a search without risking the time limit.
+ * {@link #evaluateSolved(Board, int, long[])} solves what it can of a
+ * board and reports which squares it solved, so a board that is not yet
+ * separated still has its closed regions valued exactly.
+ * Like {@link Regions}, an instance keeps its working state in its own
+ * buffers, so each thread should hold its own.
+ */
+public class RegionSolver
+{
+	/**
+	 * Returned when a region is too large or too hard to solve.
+	 */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+	
+	/**
+	 * The number of positions the memo holds if no size is given.
+	 */
+	public static final int DEFAULT_SIZE = 1 << 16;
+	
+	/**
+	 * The number of positions of the memo of a solver an evaluator makes for
+	 * itself when it is not given one.  The {@link #DEFAULT_SIZE} memo takes
+	 * over 2 MB, too much to allocate for every search; share a solver
+	 * between searches to keep its results from one to the next.
+	 */
+	public static final int SEARCH_SIZE = 1 << 10;
+	
+	/**
+	 * The most empty squares a region with a single owner may have.
+	 */
+	public static final int MAX_OWNED_SQUARES = 40;
+	
+	/**
+	 * The most empty squares a region holding both colours may have.
+	 */
+	public static final int MAX_CONTESTED_SQUARES = 14;
+	
+	/**
+	 * The most positions one call may search before giving up.
+	 */
+	public static final int NODE_LIMIT = 20000;
+	
+	/**
+	 * The number of positions the memo can hold, a power of two.
+	 */
+	private final int size;
+	
+	/**
+	 * The key of each memo entry: four longs per entry, holding the empty
+	 * squares (two words), the packed amazons of the player to move and
+	 * the packed amazons of the other player.  A player to move always has
+	 * an amazon, so a third word of zero marks an unused entry.
+	 */
+	private final long[] keys;
+	
+	/**
+	 * The value of each memo entry.
+	 */
+	private final int[] values;
+	
+	/**
+	 * The number of memo lookups that found their position.
+	 */
+	public long hits;
+	
+	/**
+	 * The number of memo lookups that did not.
+	 */
+	public long misses;
+	
+	/**
+	 * The positions searched by the current call.
+	 */
+	private int nodes;
+	
+	/**
+	 * Set when the current call has searched too many positions.
+	 */
+	private boolean aborted;
+	
+	/**
+	 * The depth of the position being searched by the current call.
+	 */
+	private int depth;
+	
+	/**
+	 * The keys of the positions being searched, four longs per depth, kept
+	 * until their values are stored.
+	 */
+	private final long[] pending = new long[4*(QueenRays.SQUARES + 2)];
+	
+	/**
+	 * The amazons of the player to move in the region being solved.
+	 */
+	private final int[] mine = new int[4];
+	
+	/**
+	 * The number of amazons in {@link #mine}.
+	 */
+	private int mineCount;
+	
+	/**
+	 * The amazons of the other player in the region being solved.
+	 */
+	private final int[] theirs = new int[4];
+	
+	/**
+	 * The number of amazons in {@link #theirs}.
+	 */
+	private int theirsCount;
+	
+	/**
+	 * The empty squares 0-63 of the region being solved.
+	 */
+	private long emptyLow;
+	
+	/**
+	 * The empty squares 64-99 of the region being solved.
+	 */
+	private long emptyHigh;
+	
+	/**
+	 * The regions found by {@link #evaluateSolved(Board, int, long[])}.
+	 */
+	private final Regions regions = new Regions(Regions.FULL);
+	
+	/**
+	 * Scratch space for the squares of a region.
+	 */
+	private final long[] region = new long[2];
+	
+	/**
+	 * Scratch space for the squares solved by {@link #evaluate(Board, int)}.
+	 */
+	private final long[] solved = new long[2];
+	
+	/**
+	 * The number of regions the last board evaluated had that could not be
+	 * solved.
+	 */
+	private int unsolved;
+	
+	/**
+	 * The number of regions holding both colours the last board evaluated
+	 * had solved.
+	 */
+	private int contested;
+	
+	/**
+	 * Scratch space for building memo keys.
+	 */
+	private final int[] sorted = new int[4];
+	
+	/**
+	 * Create a solver with a memo of the default size.
+	 */
+	public RegionSolver()
+	{
+		this(DEFAULT_SIZE);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param size		The number of positions the memo can hold.  Rounded
+	 * 					down to a power of two.
+	 */
+	public RegionSolver(int size)
+	{
+		this.size = Integer.highestOneBit(Math.max(size, 1));
+		keys = new long[4*this.size];
+		values = new int[this.size];
+	}
+	
+	/**
+	 * Solve one region of a board.
+	 * 
+	 * @param board		The board.
+	 * @param squares	The squares of the region, amazons included, as found
+	 * 					by {@link Regions#getSquares(int, long[])}.  The
+	 * 					region must be closed off: every square around it
+	 * 					must be occupied or off the board.
+	 * @param colour	The colour of the player to move.
+	 * @return			The number of moves the player to move can make in
+	 * 					the region minus the number the other player can
+	 * 					make, or {@link #UNKNOWN}.
+	 */
+	public int solve(Board board, long[] squares, int colour)
+	{
+		if (!begin(board, squares, colour))
+		{
+			return UNKNOWN;
+		}
+		
+		int value;
+		if (mineCount > 0 && theirsCount > 0)
+		{
+			value = contest(emptyLow, emptyHigh, mine, mineCount, theirs, theirsCount);
+		}
+		else if (mineCount > 0)
+		{
+			value = maxMoves(emptyLow, emptyHigh, mine, mineCount);
+		}
+		else if (theirsCount > 0)
+		{
+			value = -maxMoves(emptyLow, emptyHigh, theirs, theirsCount);
+		}
+		else
+		{
+			value = 0;
+		}
+		
+		return aborted ? UNKNOWN : value;
+	}
+	
+	/**
+	 * Find the best move in one region of a board, playing only in that
+	 * region: the move after which {@link #solve(Board, long[], int)} is
+	 * largest for the player making it.
+	 * 
+	 * @param board		The board.
+	 * @param squares	The squares of the region, as for
+	 * 					{@link #solve(Board, long[], int)}.
+	 * @param colour	The colour of the player to move.
+	 * @return			The move, encoded as by
+	 * 					{@link MoveManager#encodeMove(int, int, int, int)},
+	 * 					or {@code -1} if the player has no move in the region
+	 * 					or the region could not be solved.
+	 */
+	public int bestMove(Board board, long[] squares, int colour)
+	{
+		if (!begin(board, squares, colour))
+		{
+			return -1;
+		}
+		
+		// The moves from the region are searched as the children of the
+		// region, so that only their results are memoised.
+		depth = 1;
+		int best = -1;
+		int bestValue = Integer.MIN_VALUE;
+		for (int i = 0; i < mineCount; i++)
+		{
+			int from = mine[i];
+			int index = 0;
+			while (board.amazons[colour][index] != from)
+			{
+				index++;
+			}
+			
+			for (int d = 0; d < QueenRays.DIRECTIONS; d++)
+			{
+				for (int to : QueenRays.RAYS[from][d])
+				{
+					if (!contains(emptyLow, emptyHigh, to))
+					{
+						break;
+					}
+					
+					long movedLow = (emptyLow | bit(from, 0)) & ~bit(to, 0);
+					long movedHigh = (emptyHigh | bit(from, 1)) & ~bit(to, 1);
+					mine[i] = to;
+					
+					for (int d2 = 0; d2 < QueenRays.DIRECTIONS; d2++)
+					{
+						for (int arrow : QueenRays.RAYS[to][d2])
+						{
+							if (!contains(movedLow, movedHigh, arrow))
+							{
+								break;
+							}
+							
+							long afterLow = movedLow & ~bit(arrow, 0);
+							long afterHigh = movedHigh & ~bit(arrow, 1);
+							int value = theirsCount > 0 ?
+									1 - contest(afterLow, afterHigh, theirs, theirsCount, mine, mineCount) :
+									1 + maxMoves(afterLow, afterHigh, mine, mineCount);
+							if (aborted)
+							{
+								mine[i] = from;
+								return -1;
+							}
+							if (value > bestValue)
+							{
+								bestValue = value;
+								best = MoveManager.encodeMove(colour, index, to, arrow);
+							}
+						}
+					}
+					mine[i] = from;
+				}
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Set up the solving of a region: find its amazons and empty squares
+	 * and check that it is small enough to solve.
+	 * 
+	 * @param board		The board.
+	 * @param squares	The squares of the region.
+	 * @param colour	The colour of the player to move.
+	 * @return			{@code true} if the region may be solved,
+	 * 					{@code false} if it is too large.
+	 */
+	private boolean begin(Board board, long[] squares, int colour)
+	{
+		mineCount = collect(board, colour, squares, mine);
+		theirsCount = collect(board, 1 - colour, squares, theirs);
+		
+		emptyLow = squares[0];
+		emptyHigh = squares[1];
+		for (int i = 0; i < mineCount; i++)
+		{
+			emptyLow &= ~bit(mine[i], 0);
+			emptyHigh &= ~bit(mine[i], 1);
+		}
+		for (int i = 0; i < theirsCount; i++)
+		{
+			emptyLow &= ~bit(theirs[i], 0);
+			emptyHigh &= ~bit(theirs[i], 1);
+		}
+		
+		nodes = 0;
+		depth = 0;
+		aborted = false;
+		
+		// Squares no amazon can reach are worth nothing to either player.
+		int empties = FloodFill.size(emptyLow, emptyHigh);
+		if (mineCount == 0 && theirsCount == 0)
+		{
+			return true;
+		}
+		if (mineCount > 0 && theirsCount > 0)
+		{
+			return mineCount == 1 && theirsCount == 1 && empties <= MAX_CONTESTED_SQUARES;
+		}
+		return empties <= MAX_OWNED_SQUARES;
+	}
+	
+	/**
+	 * Evaluate a board whose regions each hold amazons of at most one
+	 * colour, as in a separated endgame.  The result is exact: the number
+	 * of moves the player to move has left minus the number the opponent
+	 * has left.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the player to move.
+	 * @return			The difference in moves left, or {@link #UNKNOWN} if
+	 * 					a region holds both colours or could not be solved.
+	 */
+	public int evaluate(Board board, int colour)
+	{
+		int total = evaluateSolved(board, colour, solved);
+		return isExact() ? total : UNKNOWN;
+	}
+	
+	/**
+	 * Solve every region of a board that can be solved, whether or not the
+	 * board is separated: regions with a single owner, and regions holding
+	 * one amazon of each colour.  A contested region is valued as if both
+	 * players played only there, so the total is only exact if
+	 * {@link #isExact()} says so afterwards.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the player to move.
+	 * @param solved	Array of two longs to store the squares of the
+	 * 					regions solved in, amazons included.
+	 * @return			The sum of the values of the regions solved, as
+	 * 					returned by {@link #solve(Board, long[], int)}.
+	 */
+	public int evaluateSolved(Board board, int colour, long[] solved)
+	{
+		solved[0] = 0;
+		solved[1] = 0;
+		unsolved = 0;
+		contested = 0;
+		
+		int count = regions.analyse(board);
+		int total = 0;
+		for (int r = 1; r <= count; r++)
+		{
+			regions.getSquares(r, region);
+			int value = solve(board, region, colour);
+			if (value == UNKNOWN)
+			{
+				unsolved++;
+				continue;
+			}
+			
+			if (mineCount > 0 && theirsCount > 0)
+			{
+				contested++;
+			}
+			total += value;
+			solved[0] |= region[0];
+			solved[1] |= region[1];
+		}
+		return total;
+	}
+	
+	/**
+	 * Determine if the last board evaluated was solved outright: every
+	 * region was solved and none holds both colours, so the total decides
+	 * the game.
+	 * 
+	 * @return			{@code true} if the total was exact, {@code false}
+	 * 					otherwise.
+	 */
+	public boolean isExact()
+	{
+		return unsolved == 0 && contested == 0;
+	}
+	
+	/**
+	 * Find the largest number of moves a player alone can make in a region.
+	 * 
+	 * @param emptyLow		The empty squares of the region, squares 0-63.
+	 * @param emptyHigh		The empty squares of the region, squares 64-99.
+	 * @param amazons		The player's amazons in the region.  Changed
+	 * 						during the search but restored before returning.
+	 * @param count			The number of amazons.
+	 * @return				The number of moves.
+	 */
+	private int maxMoves(long emptyLow, long emptyHigh, int[] amazons, int count)
+	{
+		// Every move fills one square, so there can be no more moves than
+		// empty squares.
+		int empties = FloodFill.size(emptyLow, emptyHigh);
+		if (empties == 0 || count == 0)
+		{
+			return 0;
+		}
+		
+		int entry = lookup(emptyLow, emptyHigh, amazons, count, null, 0);
+		if (entry < 0)
+		{
+			return found(-entry - 1);
+		}
+		if (++nodes > NODE_LIMIT)
+		{
+			aborted = true;
+			return 0;
+		}
+		
+		int best = 0;
+		depth++;
+		search:
+		for (int i = 0; i < count; i++)
+		{
+			int from = amazons[i];
+			for (int d = 0; d < QueenRays.DIRECTIONS; d++)
+			{
+				for (int to : QueenRays.RAYS[from][d])
+				{
+					if (!contains(emptyLow, emptyHigh, to))
+					{
+						break;
+					}
+					
+					long movedLow = (emptyLow | bit(from, 0)) & ~bit(to, 0);
+					long movedHigh = (emptyHigh | bit(from, 1)) & ~bit(to, 1);
+					amazons[i] = to;
+					
+					for (int d2 = 0; d2 < QueenRays.DIRECTIONS; d2++)
+					{
+						for (int arrow : QueenRays.RAYS[to][d2])
+						{
+							if (!contains(movedLow, movedHigh, arrow))
+							{
+								break;
+							}
+							
+							int value = 1 + maxMoves(movedLow & ~bit(arrow, 0), movedHigh & ~bit(arrow, 1), amazons, count);
+							if (aborted || value > best && (best = value) == empties)
+							{
+								amazons[i] = from;
+								break search;
+							}
+						}
+					}
+					amazons[i] = from;
+				}
+			}
+		}
+		
+		depth--;
+		finish(entry, best);
+		return best;
+	}
+	
+	/**
+	 * Find the value of a region holding both colours, with both players
+	 * playing only in the region.  A player who cannot move leaves the rest
+	 * of the region to the other.
+	 * 
+	 * @param emptyLow		The empty squares of the region, squares 0-63.
+	 * @param emptyHigh		The empty squares of the region, squares 64-99.
+	 * @param movers		The amazons of the player to move.
+	 * @param moverCount	The number of amazons of the player to move.
+	 * @param others		The amazons of the other player.
+	 * @param otherCount	The number of amazons of the other player.
+	 * @return				The moves of the player to move minus the moves of
+	 * 						the other player.
+	 */
+	private int contest(long emptyLow, long emptyHigh, int[] movers, int moverCount, int[] others, int otherCount)
+	{
+		int entry = lookup(emptyLow, emptyHigh, movers, moverCount, others, otherCount);
+		if (entry < 0)
+		{
+			return found(-entry - 1);
+		}
+		if (++nodes > NODE_LIMIT)
+		{
+			aborted = true;
+			return 0;
+		}
+		
+		int best = Integer.MIN_VALUE;
+		depth++;
+		search:
+		for (int i = 0; i < moverCount; i++)
+		{
+			int from = movers[i];
+			for (int d = 0; d < QueenRays.DIRECTIONS; d++)
+			{
+				for (int to : QueenRays.RAYS[from][d])
+				{
+					if (!contains(emptyLow, emptyHigh, to))
+					{
+						break;
+					}
+					
+					long movedLow = (emptyLow | bit(from, 0)) & ~bit(to, 0);
+					long movedHigh = (emptyHigh | bit(from, 1)) & ~bit(to, 1);
+					movers[i] = to;
+					
+					for (int d2 = 0; d2 < QueenRays.DIRECTIONS; d2++)
+					{
+						for (int arrow : QueenRays.RAYS[to][d2])
+						{
+							if (!contains(movedLow, movedHigh, arrow))
+							{
+								break;
+							}
+							
+							int value = 1 - contest(movedLow & ~bit(arrow, 0), movedHigh & ~bit(arrow, 1),
+									others, otherCount, movers, moverCount);
+							best = Math.max(best, value);
+							if (aborted)
+							{
+								movers[i] = from;
+								break search;
+							}
+						}
+					}
+					movers[i] = from;
+				}
+			}
+		}
+		
+		if (best == Integer.MIN_VALUE)
+		{
+			best = -maxMoves(emptyLow, emptyHigh, others, otherCount);
+		}
+		depth--;
+		finish(entry, best);
+		return best;
+	}
+	
+	/**
+	 * Look a position up in the memo, moving it to the top left corner of
+	 * the board first.
+	 * 
+	 * @param emptyLow		The empty squares, squares 0-63.
+	 * @param emptyHigh		The empty squares, squares 64-99.
+	 * @param movers		The amazons of the player to move.
+	 * @param moverCount	The number of amazons of the player to move.
+	 * @param others		The amazons of the other player, or {@code null}.
+	 * @param otherCount	The number of amazons of the other player.
+	 * @return				{@code -(entry + 1)} if the position was found in
+	 * 						entry {@code entry}, otherwise the entry the
+	 * 						position belongs in.
+	 */
+	private int lookup(long emptyLow, long emptyHigh, int[] movers, int moverCount, int[] others, int otherCount)
+	{
+		// Find the top left corner of the position.
+		int minRow = Board.SIZE;
+		int minCol = Board.SIZE;
+		for (long low = emptyLow; low != 0; low &= low - 1)
+		{
+			int square = Long.numberOfTrailingZeros(low);
+			minRow = Math.min(minRow, QueenRays.ROW[square]);
+			minCol = Math.min(minCol, QueenRays.COLUMN[square]);
+		}
+		for (long high = emptyHigh; high != 0; high &= high - 1)
+		{
+			int square = 64 + Long.numberOfTrailingZeros(high);
+			minRow = Math.min(minRow, QueenRays.ROW[square]);
+			minCol = Math.min(minCol, QueenRays.COLUMN[square]);
+		}
+		for (int i = 0; i < moverCount; i++)
+		{
+			minRow = Math.min(minRow, QueenRays.ROW[movers[i]]);
+			minCol = Math.min(minCol, QueenRays.COLUMN[movers[i]]);
+		}
+		for (int i = 0; i < otherCount; i++)
+		{
+			minRow = Math.min(minRow, QueenRays.ROW[others[i]]);
+			minCol = Math.min(minCol, QueenRays.COLUMN[others[i]]);
+		}
+		
+		// Every square is at least this far along, so shifting the set down
+		// by it moves the position without wrapping.
+		int shift = QueenRays.square(minRow, minCol);
+		long low;
+		long high;
+		if (shift == 0)
+		{
+			low = emptyLow;
+			high = emptyHigh;
+		}
+		else if (shift < 64)
+		{
+			low = (emptyLow >>> shift) | (emptyHigh << (64 - shift));
+			high = emptyHigh >>> shift;
+		}
+		else
+		{
+			low = emptyHigh >>> (shift - 64);
+			high = 0;
+		}
+		long moverKey = pack(movers, moverCount, shift);
+		long otherKey = pack(others, otherCount, shift);
+		
+		long hash = (low*0x9E3779B97F4A7C15L) ^ (high*0xC2B2AE3D27D4EB4FL) ^
+				(moverKey*0x165667B19E3779F9L) ^ (otherKey*0x27D4EB2F165667C5L);
+		int entry = (int)(hash >>> 32) & (size - 1);
+		
+		int k = 4*entry;
+		if (keys[k] == low && keys[k + 1] == high && keys[k + 2] == moverKey && keys[k + 3] == otherKey)
+		{
+			hits++;
+			return -entry - 1;
+		}
+		
+		// The entry may be taken over by positions deeper in the search, so
+		// the key is only written with the value.
+		misses++;
+		int p = 4*depth;
+		pending[p] = low;
+		pending[p + 1] = high;
+		pending[p + 2] = moverKey;
+		pending[p + 3] = otherKey;
+		return entry;
+	}
+	
+	/**
+	 * Read the value of a position found in the memo.  A position that was
+	 * given up on before is given up on again straight away.
+	 * 
+	 * @param entry		The entry the position was found in.
+	 * @return			The value of the position.
+	 */
+	private int found(int entry)
+	{
+		if (values[entry] == UNKNOWN)
+		{
+			aborted = true;
+			return 0;
+		}
+		return values[entry];
+	}
+	
+	/**
+	 * Record the result of searching a position.  If the search was given
+	 * up, only the position the call started from is recorded, as
+	 * {@link #UNKNOWN}, so that asking again costs a single lookup.
+	 * 
+	 * @param entry		The entry returned by the lookup.
+	 * @param value		The value of the position.
+	 */
+	private void finish(int entry, int value)
+	{
+		if (!aborted)
+		{
+			store(entry, value);
+		}
+		else if (depth == 0)
+		{
+			store(entry, UNKNOWN);
+		}
+	}
+	
+	/**
+	 * Store the value of a position in the entry found for it.  Must be
+	 * called at the search depth the position was looked up at.
+	 * 
+	 * @param entry		The entry returned by the lookup.
+	 * @param value		The value of the position.
+	 */
+	private void store(int entry, int value)
+	{
+		System.arraycopy(pending, 4*depth, keys, 4*entry, 4);
+		values[entry] = value;
+	}
+	
+	/**
+	 * Pack a set of amazon squares into a key, independent of their order.
+	 * 
+	 * @param amazons	The amazon squares.
+	 * @param count		The number of amazons.
+	 * @param shift		The amount to move each square down by.
+	 * @return			The key: seven bits per amazon, each holding the
+	 * 					square plus one, in ascending order.
+	 */
+	private long pack(int[] amazons, int count, int shift)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			int square = amazons[i] - shift;
+			int j = i;
+			for (; j > 0 && sorted[j - 1] > square; j--)
+			{
+				sorted[j] = sorted[j - 1];
+			}
+			sorted[j] = square;
+		}
+		
+		long key = 0;
+		for (int i = 0; i < count; i++)
+		{
+			key = (key << 7) | (sorted[i] + 1);
+		}
+		return key;
+	}
+	
+	/**
+	 * Find the amazons of a colour that stand in a region.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the amazons.
+	 * @param squares	The squares of the region.
+	 * @param amazons	Array to store the amazon squares in.
+	 * @return			The number of amazons found.
+	 */
+	private static int collect(Board board, int colour, long[] squares, int[] amazons)
+	{
+		int count = 0;
+		for (int i = 0; i < board.amazons[colour].length; i++)
+		{
+			int square = board.amazons[colour][i];
+			if ((squares[square >>> 6] & (1L << square)) != 0)
+			{
+				amazons[count++] = square;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Get the bit of a square within one word of a set.
+	 * 
+	 * @param square	The square index.
+	 * @param word		0 for squares 0-63, 1 for squares 64-99.
+	 * @return			The bit, or 0 if the square is in the other word.
+	 */
+	private static long bit(int square, int word)
+	{
+		return (square >>> 6) == word ? 1L << square : 0;
+	}
+	
+	/**
+	 * Determine if a square is in a set.
+	 * 
+	 * @param low		The set, squares 0-63.
+	 * @param high		The set, squares 64-99.
+	 * @param square	The square index.
+	 * @return			{@code true} if the square is in the set,
+	 * 					{@code false} otherwise.
+	 */
+	private static boolean contains(long low, long high, int square)
+	{
+		return ((square < 64 ? low : high) & (1L << square)) != 0;
+	}
+}
@@ -0,0 +1,143 @@
+package snozama.amazons.mechanics;
+
+/**
+ * Play boards that have fallen apart into small independent regions.
+ * 
+ * Late in the game the arrows split the board into regions that no amazon
+ * can leave.  A move is made in exactly one region, so the game is a sum of
+ * smaller games, and searching the whole board interleaves moves from
+ * every region: its branching factor is the product of the regions' move
+ * counts.  Here each region is solved on its own with a
+ * {@link RegionSolver}, whose memo keeps region results by shape and
+ * occupants, so a region that did not change since the last move costs
+ * a lookup.
+ * 
+ * The regions are combined by their move counts.  For each region the
+ * solver gives its value with either player moving first there; the sum
+ * of the two is what moving first in the region is worth, twice its
+ * temperature.  A region owned by one player is a plain count of moves
+ * and is worth nothing extra to move in first.  The player moves in the
+ * hottest region, which is the best move whenever at most one region is
+ * hot and a close approximation otherwise.
+ * 
+ * Like {@link Regions}, an instance keeps its working state in its own
+ * buffers, so each thread should hold its own.
+ */
+public class RegionSum
+{
+	/**
+	 * Finds the regions of a board.
+	 */
+	private final Regions regions = new Regions(Regions.FULL);
+	
+	/**
+	 * Solves the regions, remembering them between moves.
+	 */
+	private final RegionSolver solver;
+	
+	/**
+	 * Scratch space for the squares of a region.
+	 */
+	private final long[] squares = new long[2];
+	
+	/**
+	 * What moving first in the region last chosen was worth.
+	 */
+	private int gain;
+	
+	/**
+	 * Create a decomposer with a solver of its own.
+	 */
+	public RegionSum()
+	{
+		this(new RegionSolver());
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param solver	The solver to solve regions with.
+	 */
+	public RegionSum(RegionSolver solver)
+	{
+		this.solver = solver;
+	}
+	
+	/**
+	 * Choose a move by splitting the board into its regions.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the player to move.
+	 * @return			The move, encoded as by
+	 * 					{@link MoveManager#encodeMove(int, int, int, int)},
+	 * 					or {@code -1} if some region could not be solved or
+	 * 					the player has no move.  The whole board should be
+	 * 					searched instead.
+	 */
+	public int chooseMove(Board board, int colour)
+	{
+		int count = regions.analyse(board);
+		
+		int bestRegion = 0;
+		int bestGain = Integer.MIN_VALUE;
+		for (int r = 1; r <= count; r++)
+		{
+			regions.getSquares(r, squares);
+			int first = solver.solve(board, squares, colour);
+			int second = solver.solve(board, squares, 1 - colour);
+			if (first == RegionSolver.UNKNOWN || second == RegionSolver.UNKNOWN)
+			{
+				return -1;
+			}
+			
+			// Moving first is worth first; letting the opponent move first
+			// there is worth -second.
+			if (first + second > bestGain && canMove(board, colour))
+			{
+				bestGain = first + second;
+				bestRegion = r;
+			}
+		}
+		
+		if (bestRegion == 0)
+		{
+			return -1;
+		}
+		gain = bestGain;
+		regions.getSquares(bestRegion, squares);
+		return solver.bestMove(board, squares, colour);
+	}
+	
+	/**
+	 * Get what moving first in the region chosen by the last call to
+	 * {@link #chooseMove(Board, int)} was worth, in moves.
+	 * 
+	 * @return			Twice the temperature of the region.
+	 */
+	public int getGain()
+	{
+		return gain;
+	}
+	
+	/**
+	 * Determine if a player has an amazon able to move in the region held
+	 * in {@link #squares}.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the player.
+	 * @return			{@code true} if the player can move in the region,
+	 * 					{@code false} otherwise.
+	 */
+	private boolean canMove(Board board, int colour)
+	{
+		for (int i = 0; i < board.amazons[colour].length; i++)
+		{
+			int square = board.amazons[colour][i];
+			if ((squares[square >>> 6] & (1L << square)) != 0 && board.getLiberties(square) > 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
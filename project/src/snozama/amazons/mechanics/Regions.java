@@ -2,9 +2,16 @@ package snozama.amazons.mechanics;
 
 /**
  * Regions calculation code.
- * 
+ *
+ * A region is a connected set of squares not holding an arrow.  An instance
+ * keeps all of its working state in its own buffers and allocates nothing
+ * while analysing a board, so a parallel search can hold one per worker
+ * thread.  The static methods are kept for the user interface and one-off
+ * use; each of them works on a fresh instance, so they never share state
+ * with a running search.
+ *
  * @author Alex Yakovlev
- * 
+ *
  */
 public class Regions
 {
@@ -12,123 +19,242 @@ public class Regions
 	public static final int LATERAL = 1;
 	public static final int DIAGONAL = 2;
 
-	private static byte[][] regions = new byte[Board.SIZE][Board.SIZE];
-	private static Board board;
-	private static int regionCount = 1;
-	private static int[] regionSquareCount = new int[100];
-
 	/* For display only */
-	private static boolean lateral = true;
-	private static boolean diagonal = true;
+	private static volatile int displayType = FULL;
+
+	/** Which neighbours are connected: FULL, LATERAL or DIAGONAL */
+	private int type;
+
+	/** The region of each square by square index, -1 for arrows */
+	private final byte[] labels = new byte[QueenRays.SQUARES];
+
+	/** The number of squares in each region, from region 1 */
+	private final int[] regionSquareCount = new int[QueenRays.SQUARES + 1];
+
+	/** The number of regions found */
+	private int regionCount;
+
+	/** Region sets found by {@link FloodFill#label(long[], int, long[])} */
+	private final long[] components = new long[2*QueenRays.SQUARES];
 
-	/** Set to true when actually evaluation, false for display */
-	private static boolean eval = false;
+	/** The squares not holding an arrow */
+	private final long[] open = new long[2];
 
-	/* For playing */
-	private static boolean evalLateral = true;
-	private static boolean evalDiagonal = true;
-	
 	/**
-	 * Calculate full region region heuristic.
-	 * 
-	 * @param board			The board state to evaluate the heuristic over.
-	 * @param whoseTurn		Either {@code Board.BLACK} or {@code Board.WHITE}.
-	 * @return				The full regions heuristic value of the board.
+	 * Create an analyser for full regions.
 	 */
-	public static int region(Board board, int whoseTurn)
+	public Regions()
 	{
-		return region(board, whoseTurn, FULL);
+		this(FULL);
 	}
-	
+
 	/**
-	 * Calculate region region heuristic.
-	 * 
-	 * @param board			The board state to evaluate the heuristic over.
-	 * @param whoseTurn		Either {@code Board.BLACK} or {@code Board.WHITE}.
-	 * @param type			Either:
-	 * 							{@code this.LATERAL} for lateral regions.
-	 * 							{@code this.DIAGONAL} for diagonal regions.
-	 * 							{@code this.FULL} for full regions.
-	 * @return				The regions heuristic value of the board.
+	 * Create an analyser.
+	 *
+	 * @param type		The region type; one of:
+	 * 						{@code LATERAL} for lateral regions.
+	 * 						{@code DIAGONAL} for diagonal regions.
+	 * 						{@code FULL} for full regions.
 	 */
-	public static int region(Board board, int whoseTurn, int type)
+	public Regions(int type)
 	{
+		setType(type);
+	}
 
-		setEvalRegionType(type);
+	/**
+	 * Set the region type used by later analyses.  Unknown types are
+	 * ignored.
+	 *
+	 * @param type		The region type; one of {@code LATERAL},
+	 * 					{@code DIAGONAL} or {@code FULL}.
+	 */
+	public void setType(int type)
+	{
+		if (type == FULL || type == LATERAL || type == DIAGONAL)
+		{
+			this.type = type;
+		}
+	}
 
-		eval = true;
-		calcRegions(board);
-		eval = false;
+	/**
+	 * Get the region type.
+	 *
+	 * @return			{@code LATERAL}, {@code DIAGONAL} or {@code FULL}.
+	 */
+	public int getType()
+	{
+		return type;
+	}
 
-		int[] numWhiteByRegion = new int[regionCount + 1];
-		int[] numBlackByRegion = new int[regionCount + 1];
-		for (int i = 0; i < numWhiteByRegion.length; i++)
+	/**
+	 * Find the regions of a board.  Regions are numbered from 1 in the order
+	 * their first square is met scanning row by row.
+	 *
+	 * @param board		The board to calculate the regions for.
+	 * @return			The number of regions found.
+	 */
+	public int analyse(Board board)
+	{
+		// Every square except the arrows.
+		board.getOccupied(open);
+		open[0] = ~open[0];
+		open[1] = ~open[1] & ((1L << (QueenRays.SQUARES - 64)) - 1);
+		for (int color = 0; color < 2; color++)
 		{
-			numWhiteByRegion[i] = 0;
+			for (int i = 0; i < board.amazons[color].length; i++)
+			{
+				int square = board.amazons[color][i];
+				open[square >>> 6] |= 1L << square;
+			}
 		}
-		for (int i = 0; i < numBlackByRegion.length; i++)
+
+		for (int square = 0; square < QueenRays.SQUARES; square++)
 		{
-			numBlackByRegion[i] = 0;
+			if ((open[square >>> 6] & (1L << square)) == 0)
+			{
+				labels[square] = -1;
+			}
 		}
 
-		for (int color = 0; color < 2; color++)
+		regionCount = FloodFill.label(open, type, components);
+
+		for (int i = 0; i < regionCount; i++)
 		{
-			for (int i = 0; i < board.amazons[color].length; i++)
+			long low = components[2*i];
+			long high = components[2*i + 1];
+			regionSquareCount[i + 1] = FloodFill.size(low, high);
+
+			for (; low != 0; low &= low - 1)
 			{
-				int row = Board.decodeAmazonRow(board.amazons[color][i]);
-				int col = Board.decodeAmazonColumn(board.amazons[color][i]);
-
-				if (color == Board.WHITE)
-				{
-					numWhiteByRegion[regions[row][col]]++;
-				} else
-				{
-					numBlackByRegion[regions[row][col]]++;
-				}
+				labels[Long.numberOfTrailingZeros(low)] = (byte)(i + 1);
+			}
+			for (; high != 0; high &= high - 1)
+			{
+				labels[64 + Long.numberOfTrailingZeros(high)] = (byte)(i + 1);
 			}
 		}
 
-		int score = 0;
+		return regionCount;
+	}
 
-		for (int i = 1; i <= regionCount; i++)
+	/**
+	 * Calculate the region heuristic: each amazon scores the size of its
+	 * region for its colour.
+	 *
+	 * @param board			The board state to evaluate the heuristic over.
+	 * @param whoseTurn		Either {@code Board.BLACK} or {@code Board.WHITE}.
+	 * @return				The regions heuristic value of the board.
+	 */
+	public int evaluate(Board board, int whoseTurn)
+	{
+		analyse(board);
+
+		int score = 0;
+		for (int i = 0; i < board.amazons[Board.WHITE].length; i++)
+		{
+			score += regionSquareCount[labels[board.amazons[Board.WHITE][i]]];
+		}
+		for (int i = 0; i < board.amazons[Board.BLACK].length; i++)
 		{
-			int queenRatio = numWhiteByRegion[i] - numBlackByRegion[i];
-			score += queenRatio * regionSquareCount[i];
+			score -= regionSquareCount[labels[board.amazons[Board.BLACK][i]]];
 		}
 
 		return whoseTurn == Board.WHITE ? score : -score;
 	}
 
 	/**
-	 * Set the evaluation type for the heuristic.
-	 * 
-	 * @param regionType		The region type; one of:
-	 * 								{@code this.LATERAL} for lateral regions.
-	 * 								{@code this.DIAGONAL} for diagonal regions.
-	 * 								{@code this.FULL} for full regions.
+	 * Get the region of a square found by the last analysis.
+	 *
+	 * @param square	The square index.
+	 * @return			The region number, or -1 if the square holds an
+	 * 					arrow.
 	 */
-	public static void setEvalRegionType(int regionType)
+	public int getRegion(int square)
 	{
-		if (regionType == FULL)
-		{
-			evalLateral = true;
-			evalDiagonal = true;
-		} else if (regionType == LATERAL)
-		{
-			evalLateral = true;
-			evalDiagonal = false;
-		} else if (regionType == DIAGONAL)
+		return labels[square];
+	}
+
+	/**
+	 * Get the number of squares in a region found by the last analysis.
+	 *
+	 * @param region	The region number, from 1.
+	 * @return			The number of squares in the region.
+	 */
+	public int getRegionSize(int region)
+	{
+		return regionSquareCount[region];
+	}
+
+	/**
+	 * Get the squares of a region found by the last analysis, amazons
+	 * included.
+	 *
+	 * @param region	The region number, from 1.
+	 * @param set		Array to store the squares in: squares 0-63 in the
+	 * 					first element, squares 64-99 in the second.
+	 */
+	public void getSquares(int region, long[] set)
+	{
+		set[0] = components[2*(region - 1)];
+		set[1] = components[2*(region - 1) + 1];
+	}
+
+	/**
+	 * Get the number of regions found by the last analysis.
+	 *
+	 * @return			The number of regions.
+	 */
+	public int getRegionCount()
+	{
+		return regionCount;
+	}
+
+	/**
+	 * Copy the regions found by the last analysis into a grid.
+	 *
+	 * @param regions	The grid to fill, indexed by row then column.
+	 */
+	public void getRegions(byte[][] regions)
+	{
+		for (int square = 0; square < QueenRays.SQUARES; square++)
 		{
-			evalLateral = false;
-			evalDiagonal = true;
+			regions[QueenRays.ROW[square]][QueenRays.COLUMN[square]] = labels[square];
 		}
 	}
 
+	/**
+	 * Calculate full region region heuristic.
+	 *
+	 * @param board			The board state to evaluate the heuristic over.
+	 * @param whoseTurn		Either {@code Board.BLACK} or {@code Board.WHITE}.
+	 * @return				The full regions heuristic value of the board.
+	 */
+	public static int region(Board board, int whoseTurn)
+	{
+		return region(board, whoseTurn, FULL);
+	}
+
+	/**
+	 * Calculate region region heuristic.
+	 *
+	 * @param board			The board state to evaluate the heuristic over.
+	 * @param whoseTurn		Either {@code Board.BLACK} or {@code Board.WHITE}.
+	 * @param type			Either:
+	 * 							{@code this.LATERAL} for lateral regions.
+	 * 							{@code this.DIAGONAL} for diagonal regions.
+	 * 							{@code this.FULL} for full regions.
+	 * @return				The regions heuristic value of the board.
+	 */
+	public static int region(Board board, int whoseTurn, int type)
+	{
+		return new Regions(type).evaluate(board, whoseTurn);
+	}
+
 	/**
 	 * Set the region tye for displaying.
-	 * 
+	 *
 	 * NOTE: For Display ONLY.
-	 * 
+	 *
 	 * @param regionType		The region type; one of:
 	 * 								{@code this.LATERAL} for lateral regions.
 	 * 								{@code this.DIAGONAL} for diagonal regions.
@@ -136,148 +262,32 @@ public class Regions
 	 */
 	public static void setRegionType(int regionType)
 	{
-		if (regionType == FULL)
-		{
-			lateral = true;
-			diagonal = true;
-		} else if (regionType == LATERAL)
-		{
-			lateral = true;
-			diagonal = false;
-		} else if (regionType == DIAGONAL)
+		if (regionType == FULL || regionType == LATERAL || regionType == DIAGONAL)
 		{
-			lateral = false;
-			diagonal = true;
+			displayType = regionType;
 		}
 	}
-	
+
 	/**
-	 * Find the regions of a board.
-	 * 
+	 * Find the regions of a board for displaying, using the type set by
+	 * {@link #setRegionType(int)}.  Arrows are marked -1.
+	 *
 	 * @param board		The board to calculate the regions for.
 	 * @return			A two-dimensional array with regions found.
 	 */
 	public static byte[][] calcRegions(Board board)
 	{
-		regions = new byte[Board.SIZE][Board.SIZE];
-		Regions.board = board;
-
-		// initialize with zeros
-		for (int i = 0; i < Board.SIZE; i++)
-		{
-			for (int j = 0; j < Board.SIZE; j++)
-			{
-				regions[i][j] = 0;
-			}
-		}
-
-		regionCount = 1;
-		for (int i = 1; i < regionSquareCount.length; i++)
-		{
-			regionSquareCount[i] = 0;
-		}
-
-		for (int i = 0; i < Board.SIZE; i++)
-		{
-			for (int j = 0; j < Board.SIZE; j++)
-			{
-				if (Regions.board.isArrow(i, j))
-				{
-					regions[i][j] = -1;
-				} else if (regions[i][j] == 0)
-				{
-					claimRegion(i, j, regionCount++);
-				}
-			}
-		}
+		Regions analyser = new Regions(displayType);
+		analyser.analyse(board);
 
+		byte[][] regions = new byte[Board.SIZE][Board.SIZE];
+		analyser.getRegions(regions);
 		return regions;
 	}
-	
-	/**
-	 * Mark a part of the board to belong to a specific region.
-	 * 
-	 * @param row			The row of the location to claim.
-	 * @param col			The column of the location to claim.
-	 * @param regionCount	Which region the location is claimed by.
-	 */
-	public static void claimRegion(int row, int col, int regionCount)
-	{
-		regions[row][col] = (byte) regionCount;
-		regionSquareCount[regionCount]++;
-
-		if ((eval && evalLateral) || (!eval && lateral))
-		{
-			// go up
-			if (row > 0 && !board.isArrow(row - 1, col)
-					&& regions[row - 1][col] == 0)
-			{
-				claimRegion(row - 1, col, regionCount);
-			}
-
-			// go left
-			if (col > 0 && !board.isArrow(row, col - 1)
-					&& regions[row][col - 1] == 0)
-			{
-				claimRegion(row, col - 1, regionCount);
-			}
-
-			// go down
-			if (row < Board.SIZE - 1 && !board.isArrow(row + 1, col)
-					&& regions[row + 1][col] == 0)
-			{
-				claimRegion(row + 1, col, regionCount);
-			}
-
-			// go right
-			if (col < Board.SIZE - 1 && !board.isArrow(row, col + 1)
-					&& regions[row][col + 1] == 0)
-			{
-				claimRegion(row, col + 1, regionCount);
-			}
-
-		}
-
-		if ((eval && evalDiagonal) || (!eval && diagonal))
-		{
-
-			// go diagonal left up (\)
-			if (row > 0 && col > 0 && !board.isArrow(row - 1, col - 1)
-					&& regions[row - 1][col - 1] == 0)
-			{
-				claimRegion(row - 1, col - 1, regionCount);
-			}
-
-			// go diagonal left down (/)
-			if (col > 0 && row < Board.SIZE - 1
-					&& !board.isArrow(row + 1, col - 1)
-					&& regions[row + 1][col - 1] == 0)
-			{
-				claimRegion(row + 1, col - 1, regionCount);
-			}
-
-			// go diagonal right down (\)
-			if (row < Board.SIZE - 1 && col < Board.SIZE - 1
-					&& !board.isArrow(row + 1, col + 1)
-					&& regions[row + 1][col + 1] == 0)
-			{
-				claimRegion(row + 1, col + 1, regionCount);
-			}
-
-			// go diagonal right up (/)
-			if (row > 0 && col < Board.SIZE - 1
-					&& !board.isArrow(row - 1, col + 1)
-					&& regions[row - 1][col + 1] == 0)
-			{
-				claimRegion(row - 1, col + 1, regionCount);
-			}
-		}
-
-	}
 
 	/**
 	 * Create an initial simulated board to use in computing regions.
-	 * 
+	 *
 	 * @return	Unclaimed regions board.
 	 */
 	public static byte[][] initRegions()
@@ -0,0 +1,109 @@
+package snozama.amazons.mechanics;
+
+/**
+ * The evaluator built from Snozama's heuristics.
+ * 
+ * The full tier is {@link SnozamaHeuristic#evaluateBoard(Board, int, int)},
+ * with the territory kept by the evaluator rather than allocated per call.
+ * It is computed from scratch at every leaf, as updating it from the last
+ * leaf measured slower (see {@link Territory#update(Board)}).  The cheap
+ * tier is min-mobility alone, which needs no territory at all.
+ * 
+ * Small closed regions are worth exactly the number of moves their owner
+ * can make in them, and a region holding one amazon of each side the
+ * difference in moves when both play it out.  The full tier counts every
+ * region a {@link RegionSolver} solves by that value instead of by the
+ * squares each player owns there.  Whenever the solver solves every region
+ * and none is contested, the full tier knows who wins and returns
+ * {@link #SOLVED} plus the solver's count for a win, or minus
+ * {@link #SOLVED} plus it for a loss, so proven results always rank above
+ * or below every heuristic score.  Only boards from
+ * {@link #SEPARATION_TURN} on are broken into regions, which saves the
+ * flood fill on open boards where no region is closed yet.
+ */
+public class SnozamaEvaluator implements Evaluator
+{
+	/**
+	 * The score of a proven win, before the solver's count is added.  Far
+	 * beyond any heuristic score, and far within the search's infinities.
+	 */
+	public static final int SOLVED = 10000;
+	
+	/**
+	 * The first turn whose regions are solved.  Closing a region off takes
+	 * many arrows, and earlier boards are too open to have any in play.  A
+	 * region missed only falls back on the heuristics.
+	 */
+	public static final int SEPARATION_TURN = 20;
+	
+	/**
+	 * Territory storage reused by every full evaluation.
+	 */
+	private final Territory territory = new Territory();
+	
+	/**
+	 * Line occupancy storage reused by every min-mobility count.
+	 */
+	private final int[] lines = new int[QueenReach.LINES];
+	
+	/**
+	 * Solves the closed regions of the boards evaluated, remembering them
+	 * between evaluations.
+	 */
+	private final RegionSolver solver;
+	
+	/**
+	 * The squares of the regions the solver solved on the last board.
+	 */
+	private final long[] solved = new long[2];
+	
+	/**
+	 * Create an evaluator with a small region solver of its own, as a
+	 * search makes for itself.
+	 */
+	public SnozamaEvaluator()
+	{
+		this(new RegionSolver(RegionSolver.SEARCH_SIZE));
+	}
+	
+	/**
+	 * Create an evaluator solving regions with a solver that may be shared
+	 * with later evaluators, keeping its results from one to the next.
+	 * 
+	 * @param solver	The region solver.
+	 */
+	public SnozamaEvaluator(RegionSolver solver)
+	{
+		this.solver = solver;
+	}
+	
+	@Override
+	public int evaluate(Board board, int activePlayer, int turn)
+	{
+		if (turn < SEPARATION_TURN)
+		{
+			territory.compute(board);
+			return SnozamaHeuristic.evaluateBoard(board, territory, lines, activePlayer, turn);
+		}
+		
+		int exact = solver.evaluateSolved(board, activePlayer, solved);
+		if (solver.isExact())
+		{
+			// The player to move runs out first when the counts are even.
+			return exact > 0 ? SOLVED + exact : -SOLVED + exact;
+		}
+		
+		// Count the solved regions by their value rather than by the squares
+		// each player owns there.
+		territory.compute(board);
+		int msp = SnozamaHeuristic.MSP(territory, activePlayer) + exact
+				- territory.countOwned(activePlayer, solved) + territory.countOwned(1 - activePlayer, solved);
+		return SnozamaHeuristic.evaluateBoard(board, msp, lines, activePlayer, turn);
+	}
+	
+	@Override
+	public int estimate(Board board, int activePlayer, int turn)
+	{
+		return SnozamaHeuristic.minMobility(board, activePlayer, lines);
+	}
+}
@@ -0,0 +1,79 @@
+package snozama.amazons.mechanics.algo;
+
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
+
+/**
+ * Move storage for each ply of a search.
+ * 
+ * Every ply owns one {@link MoveManager}, created the first time the search
+ * reaches that depth and refilled at every later node of the same depth.
+ * Once the search has been through a depth, generating successors there no
+ * longer allocates.
+ * 
+ * A move stack can be handed from one search to the next, so that a player
+ * searching every turn allocates its move storage only once.  Searches
+ * running at the same time each need their own.
+ */
+public class MoveStack
+{
+	/**
+	 * The move storage of each ply, indexed by depth.
+	 */
+	private MoveManager[] plies;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxDepth	The deepest ply the search can reach.
+	 */
+	public MoveStack(int maxDepth)
+	{
+		plies = new MoveManager[maxDepth + 1];
+	}
+	
+	/**
+	 * Get the move storage of a ply, creating it if the ply has not been
+	 * reached before.
+	 * 
+	 * @param depth		The depth of the ply.
+	 * @return			The move storage of the ply.
+	 */
+	public MoveManager get(int depth)
+	{
+		if (plies[depth] == null)
+		{
+			plies[depth] = new MoveManager();
+		}
+		return plies[depth];
+	}
+	
+	/**
+	 * Generate the successors of a board into the move storage of a ply.
+	 * 
+	 * @param board		The current board position.
+	 * @param depth		The depth of the ply.
+	 * @param colour	The colour of the player to move.
+	 * @return			The move storage of the ply, holding the successors.
+	 */
+	public MoveManager generate(Board board, int depth, int colour)
+	{
+		return board.getSuccessors(colour, get(depth));
+	}
+	
+	/**
+	 * Start generating the successors of a board in stages into the move
+	 * storage of a ply (see {@link MoveManager#stage(Board, int)}).
+	 * 
+	 * @param board		The current board position.
+	 * @param depth		The depth of the ply.
+	 * @param colour	The colour of the player to move.
+	 * @return			The move storage of the ply, ready to be iterated.
+	 */
+	public MoveManager stage(Board board, int depth, int colour)
+	{
+		MoveManager successors = get(depth);
+		successors.stage(board, colour);
+		return successors;
+	}
+}
@@ -4,8 +4,11 @@ import java.util.Arrays;
 
 import snozama.amazons.global.GlobalFunctions;
 import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Evaluator;
 import snozama.amazons.mechanics.MoveManager;
-import snozama.amazons.mechanics.SnozamaHeuristic;
+import snozama.amazons.mechanics.SnozamaEvaluator;
+import snozama.amazons.mechanics.transtable.EvaluationCache;
+import snozama.amazons.mechanics.transtable.ZobristTTable;
 
 /**
  * Class containing NegaScout search as described in Qian Liang's paper.
@@ -25,20 +28,86 @@ public class SelectiveNegaScout {
 	public int depthCompleted;
 	
 	int[] bestMoves = new int[100];
-	int[] scores = new int[2176];
+	int[] scores = new int[MoveManager.MAX_MOVES];
+	
+	MoveStack moveStack;
 	
 	long endTime;
 	
+	Evaluator evaluator;
+	
+	EvaluationCache evalCache;
+	
+	long zkey;
+	
 	int currentRoot;
 	
 	/**
-	 * Default constructor.
+	 * Set by {@link #IDNegaScoutSearch(Board, int, int)} while it searches,
+	 * once it has generated all the root moves of its board onto the move
+	 * stack.  Each iteration then reuses them in the order of their scores
+	 * instead of generating them again.  Any other call generates its own.
+	 */
+	boolean reuseRoot;
+	
+	/**
+	 * The number of root moves {@link #IDNegaScoutSearch(Board, int, int)}
+	 * generated.  Each iteration may trim the root moves it searches, so the
+	 * next one puts them all back before sorting them again.
+	 */
+	int rootSize;
+	
+	/**
+	 * Default constructor, evaluating positions with Snozama's heuristics.
 	 * 
 	 * @param end		The system milliseconds time to not search past.
 	 */
 	public SelectiveNegaScout(long end)
+	{
+		this(end, new SnozamaEvaluator());
+	}
+	
+	/**
+	 * Constructor with a choice of evaluation, keeping the evaluations in a
+	 * small cache of the search's own.
+	 * 
+	 * @param end			The system milliseconds time to not search past.
+	 * @param evaluator		The evaluator to score leaf positions with.
+	 */
+	public SelectiveNegaScout(long end, Evaluator evaluator)
+	{
+		this(end, evaluator, new EvaluationCache(EvaluationCache.SEARCH_SIZE));
+	}
+	
+	/**
+	 * Constructor with a choice of evaluation and of the cache the
+	 * evaluations are kept in, which may be shared with later searches.
+	 * 
+	 * @param end			The system milliseconds time to not search past.
+	 * @param evaluator		The evaluator to score leaf positions with.
+	 * @param evalCache		The cache of leaf evaluations.
+	 */
+	public SelectiveNegaScout(long end, Evaluator evaluator, EvaluationCache evalCache)
+	{
+		this(end, evaluator, evalCache, new MoveStack(20));
+	}
+	
+	/**
+	 * Constructor with a choice of evaluation, of the cache the evaluations
+	 * are kept in and of the move stack, both of which may be shared with
+	 * later searches.
+	 * 
+	 * @param end			The system milliseconds time to not search past.
+	 * @param evaluator		The evaluator to score leaf positions with.
+	 * @param evalCache		The cache of leaf evaluations.
+	 * @param moveStack		The move storage of each ply, at least 20 deep.
+	 */
+	public SelectiveNegaScout(long end, Evaluator evaluator, EvaluationCache evalCache, MoveStack moveStack)
 	{
 		endTime = end;
+		this.moveStack = moveStack;
+		this.evaluator = evaluator;
+		this.evalCache = evalCache;
 
 		Arrays.fill(scores, NEG_INFINITY);
 		depthCompleted = 0;
@@ -72,11 +141,16 @@ public class SelectiveNegaScout {
 	 */
 	public int NegaScoutSearch(Board board, int depth, int maxDepth, int alpha, int beta, int colour, int turn)
 	{
+		if (depth == 0)
+		{
+			zkey = ZobristTTable.computeBoardHash(board, colour);
+		}
+		
 		int next = 0;
 		
 		if (depth == maxDepth || board.isTerminal())
 		{
-			int value = SnozamaHeuristic.evaluateBoard(board, colour, turn);
+			int value = evalCache.evaluate(evaluator, zkey, board, colour, turn);
 			
 			if (-value > scores[currentRoot])
 			{
@@ -87,11 +161,23 @@ public class SelectiveNegaScout {
 		
 		int score = Integer.MIN_VALUE;
 		int b = beta;
-		MoveManager successors = board.getSuccessors(colour); //generate successors
+		MoveManager successors;
+		if (depth == 0 && reuseRoot)
+		{
+			// Keep the root moves from the previous iteration, so they stay
+			// lined up with their scores.
+			successors = moveStack.get(depth);
+			successors.clearIteratorState();
+		}
+		else
+		{
+			successors = moveStack.stage(board, depth, colour); //generate successors as they are needed
+		}
 		
 		// Move ordering for iterative deepening.
-		if (next == 0 && depth == 0 && maxDepth > 1)
+		if (next == 0 && depth == 0 && reuseRoot && maxDepth > 1)
 		{
+			successors.setSize(rootSize);
 			successors.sort(scores);
 			trimSearchSpace(successors, scores);
 		}
@@ -109,6 +195,7 @@ public class SelectiveNegaScout {
 			int row_s = Board.decodeAmazonRow(board.amazons[colour][successors.getAmazonIndex(next)]);
 			int col_s = Board.decodeAmazonColumn(board.amazons[colour][successors.getAmazonIndex(next)]);
 			successors.applyMove(board, next); //execute current move
+			zkey = ZobristTTable.updateHashKeyByMove(zkey, successors.getMove(next), row_s, col_s);
 			nodes++;
 			
 			int current = -NegaScoutSearch(board, depth+1, maxDepth, -b, -alpha, GlobalFunctions.flip(colour), turn+1);
@@ -129,6 +216,7 @@ public class SelectiveNegaScout {
 			}			
 			
 			successors.undoMove(board, next, row_s, col_s); //retract current move
+			zkey = ZobristTTable.updateHashKeyByMove(zkey, successors.getMove(next), row_s, col_s);
 			
 			if (alpha >= beta)
 			{
@@ -154,6 +242,8 @@ public class SelectiveNegaScout {
 	{
 		int depth = 1;
 		int[] bestScore = new int[20];	// Really an array of best moves at a given depth.
+		rootSize = moveStack.generate(board, 0, colour).size();
+		reuseRoot = true;
 		while (depth <= 20 && System.currentTimeMillis() < endTime)
 		{
 			NegaScoutSearch(board, 0, depth, NEG_INFINITY, POS_INFINITY, colour, turn);
@@ -162,9 +252,11 @@ public class SelectiveNegaScout {
 			
 			depth++;
 		}
+		reuseRoot = false;
 		boolean found = false;
 		System.out.println("Last depth attempted: " + depthCompleted);
 		System.out.println("Nodes expanded:       " + nodes);
+		System.out.println("Evaluations cached:   " + evalCache.hits + " of " + (evalCache.hits + evalCache.misses));
 		for (int i = bestScore.length-1; i >= 0; i--)
 		{
 			if (found)
@@ -4,8 +4,11 @@ import java.util.Arrays;
 
 import snozama.amazons.global.GlobalFunctions;
 import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Evaluator;
 import snozama.amazons.mechanics.MoveManager;
-import snozama.amazons.mechanics.SnozamaHeuristic;
+import snozama.amazons.mechanics.SnozamaEvaluator;
+import snozama.amazons.mechanics.transtable.EvaluationCache;
+import snozama.amazons.mechanics.transtable.TranspositionTable;
 import snozama.amazons.mechanics.transtable.ZobristTTable;
 
 /**
@@ -29,33 +32,86 @@ public class TranspositionNegaScout {
 	public int depthCompleted;
 	
 	int[] bestMoves = new int[absoluteMaxDepth];
-	int[] scores = new int[2176];
+	int[][] records = new int[absoluteMaxDepth + 1][ZobristTTable.RECORD_SIZE];	// Table record of each depth, reused by every probe.
+	int[] scores = new int[MoveManager.MAX_MOVES];
 	
-	ZobristTTable table;
-	int zkey;
+	MoveStack moveStack = new MoveStack(absoluteMaxDepth);
+	
+	TranspositionTable table;
+	long zkey;
 	
 	long endTime;
 	
+	Evaluator evaluator;
+	
+	EvaluationCache evalCache;
+	
 	int currentRoot;
 	
+	/**
+	 * Set by {@link #IDNegaScoutSearch(Board, int, int)} while it searches,
+	 * once it has generated all the root moves of its board onto the move
+	 * stack.  Each iteration then reuses them in the order of their scores
+	 * instead of generating them again.  Any other call generates its own.
+	 */
+	boolean reuseRoot;
+	
 	boolean gotoEnd;
 	
 	public TranspositionNegaScout(long end, int tableSize, Board startBoard)
 	{
-		table = new ZobristTTable(tableSize);
-		zkey = table.computeBoardHash(startBoard);
-		
-		Arrays.fill(scores, NEG_INFINITY);
-		depthCompleted = 0;
-		endTime = end;
-		
-		gotoEnd = false;
+		this(end, tableSize, startBoard, new SnozamaEvaluator());
+	}
+	
+	public TranspositionNegaScout(long end, TranspositionTable table, Board startBoard)
+	{
+		this(end, table, startBoard, new SnozamaEvaluator());
+	}
+	
+	/**
+	 * Constructor with a new transposition table and a choice of evaluation.
+	 * 
+	 * @param end			The system milliseconds time to not search past.
+	 * @param tableSize		The size of the transposition table.
+	 * @param startBoard	The board the search starts from.
+	 * @param evaluator		The evaluator to score leaf positions with.
+	 */
+	public TranspositionNegaScout(long end, int tableSize, Board startBoard, Evaluator evaluator)
+	{
+		this(end, new ZobristTTable(tableSize), startBoard, evaluator);
+	}
+	
+	/**
+	 * Constructor with an existing transposition table and a choice of
+	 * evaluation, keeping the evaluations in a small cache of the search's
+	 * own.
+	 * 
+	 * @param end			The system milliseconds time to not search past.
+	 * @param table			The transposition table to search with.
+	 * @param startBoard	The board the search starts from.
+	 * @param evaluator		The evaluator to score leaf positions with.
+	 */
+	public TranspositionNegaScout(long end, TranspositionTable table, Board startBoard, Evaluator evaluator)
+	{
+		this(end, table, startBoard, evaluator, new EvaluationCache(EvaluationCache.SEARCH_SIZE));
 	}
 	
-	public TranspositionNegaScout(long end, ZobristTTable table, Board startBoard)
+	/**
+	 * Constructor with an existing transposition table, a choice of
+	 * evaluation and of the cache the evaluations are kept in.
+	 * 
+	 * @param end			The system milliseconds time to not search past.
+	 * @param table			The transposition table to search with.
+	 * @param startBoard	The board the search starts from.
+	 * @param evaluator		The evaluator to score leaf positions with.
+	 * @param evalCache		The cache of leaf evaluations.
+	 */
+	public TranspositionNegaScout(long end, TranspositionTable table, Board startBoard, Evaluator evaluator, EvaluationCache evalCache)
 	{
 		this.table = table;
-		zkey = table.computeBoardHash(startBoard);
+		this.evaluator = evaluator;
+		this.evalCache = evalCache;
+		zkey = ZobristTTable.computeBoardHash(startBoard);
 		
 		Arrays.fill(scores, NEG_INFINITY);
 		depthCompleted = 0;
@@ -91,12 +147,18 @@ public class TranspositionNegaScout {
 	 */
 	public int NegaScoutSearch(Board board, int depth, int maxDepth, int alpha, int beta, int colour, int turn)
 	{
-		int zrecord[];
+		if (depth == 0)
+		{
+			zkey = ZobristTTable.computeBoardHash(board, colour);
+		}
 		
-		// Check transposition table for previous board position.
-		// Ensure data is correct.
+		int zrecord[] = records[depth];
+		
+		// Check transposition table for previous board position.  The key
+		// includes the side to move and the table checks the whole key, so
+		// a record found is for this position.
 		/// Transposition table code ///////////////////////////////////////////
-		if ((zrecord = table.get(zkey))[ZobristTTable.DEPTH] >= maxDepth - depth && board.isValidMove(zrecord[ZobristTTable.MOVE]) && zrecord[ZobristTTable.POS_INFO] == colour)
+		if (table.probe(zkey, zrecord) && zrecord[ZobristTTable.DEPTH] >= maxDepth - depth)
 		{
 			switch (zrecord[ZobristTTable.FLAG])
 			{
@@ -126,7 +188,7 @@ public class TranspositionNegaScout {
 		
 		if (depth == maxDepth || board.isTerminal())
 		{
-			int value = SnozamaHeuristic.evaluateBoard(board, colour, turn);
+			int value = evalCache.evaluate(evaluator, zkey, board, colour, turn);
 			
 			if (-value > scores[currentRoot])
 			{
@@ -141,15 +203,21 @@ public class TranspositionNegaScout {
 		
 		int next = 0;
 		
+		// The best move found at this node, or 0 if none raised alpha.
+		int bestMove = 0;
+		
 		/// Transposition table code - attempt found value FIRST ///////////////
-		if (zrecord[ZobristTTable.DEPTH] > -1)
+		// The table names the amazon by its square, so the move is for the
+		// same amazon whichever order this board keeps the amazons in.
+		int tmove = ZobristTTable.fromTableMove(board, zrecord[ZobristTTable.MOVE]);
+		if (zrecord[ZobristTTable.DEPTH] > -1 && tmove != 0)
 		{
-			int aindex = MoveManager.getAmazonIndexFromUnmanagedMove(zrecord[ZobristTTable.MOVE], board);
+			int aindex = MoveManager.getAmazonIndexFromUnmanagedMove(tmove, board);
 			row_s = Board.decodeAmazonRow(board.amazons[colour][aindex]);
 			col_s = Board.decodeAmazonColumn(board.amazons[colour][aindex]);
 			
-			MoveManager.applyUnmanagedMove(board, zrecord[ZobristTTable.MOVE]);
-			zkey = table.updateHashKeyByMove(zkey, zrecord[ZobristTTable.MOVE], row_s, col_s);
+			MoveManager.applyUnmanagedMove(board, tmove);
+			zkey = ZobristTTable.updateHashKeyByMove(zkey, tmove, row_s, col_s);
 			
 			int current = -NegaScoutSearch(board, depth+1, maxDepth, -beta, -alpha, GlobalFunctions.flip(colour), turn+1);
 			if (current > score)
@@ -159,7 +227,8 @@ public class TranspositionNegaScout {
 			if (score > alpha)
 			{
 				alpha = score;
-				bestMoves[depth] = zrecord[ZobristTTable.MOVE];
+				bestMoves[depth] = tmove;
+				bestMove = tmove;
 			}
 			
 			if (alpha >= beta)
@@ -171,16 +240,27 @@ public class TranspositionNegaScout {
 				scores[currentRoot] = score;
 			}
 			
-			MoveManager.undoUnmanagedMove(board, zrecord[ZobristTTable.MOVE], row_s, col_s);
-			zkey = table.updateHashKeyByMove(zkey, zrecord[ZobristTTable.MOVE], row_s, col_s);
+			MoveManager.undoUnmanagedMove(board, tmove, row_s, col_s);
+			zkey = ZobristTTable.updateHashKeyByMove(zkey, tmove, row_s, col_s);
 		}
 		////////////////////////////////////////////////////////////////////////
 		
 		int b = beta;
-		MoveManager successors = board.getSuccessors(colour); //generate successors
+		MoveManager successors;
+		if (depth == 0 && reuseRoot)
+		{
+			// Keep the root moves from the previous iteration, so they stay
+			// lined up with their scores.
+			successors = moveStack.get(depth);
+			successors.clearIteratorState();
+		}
+		else
+		{
+			successors = moveStack.stage(board, depth, colour); //generate successors as they are needed
+		}
 		
 		// Move ordering for iterative deepening.
-		if (next == 0 && depth == 0 && maxDepth > 1)
+		if (next == 0 && depth == 0 && reuseRoot && maxDepth > 1)
 		{
 			successors.sort(scores);
 		}
@@ -198,6 +278,7 @@ public class TranspositionNegaScout {
 			row_s = Board.decodeAmazonRow(board.amazons[colour][successors.getAmazonIndex(next)]);
 			col_s = Board.decodeAmazonColumn(board.amazons[colour][successors.getAmazonIndex(next)]);
 			successors.applyMove(board, next); //execute current move
+			zkey = ZobristTTable.updateHashKeyByMove(zkey, successors.getMove(next), row_s, col_s);
 			nodes++;
 			
 			int current = -NegaScoutSearch(board, depth+1, maxDepth, -b, -alpha, GlobalFunctions.flip(colour), turn+1);
@@ -215,9 +296,11 @@ public class TranspositionNegaScout {
 				alpha = score; //adjust the search window
 				
 				bestMoves[depth] = successors.getMove(next);
+				bestMove = successors.getMove(next);
 			}			
 			
 			successors.undoMove(board, next, row_s, col_s); //retract current move
+			zkey = ZobristTTable.updateHashKeyByMove(zkey, successors.getMove(next), row_s, col_s);
 			
 			if (alpha >= beta)
 			{
@@ -246,8 +329,7 @@ public class TranspositionNegaScout {
 		// Update the table record.
 		zrecord[ZobristTTable.DEPTH] = maxDepth - depth;
 		zrecord[ZobristTTable.SCORE] = score;
-		zrecord[ZobristTTable.MOVE] = bestMoves[depth];
-		zrecord[ZobristTTable.POS_INFO] = colour;
+		zrecord[ZobristTTable.MOVE] = ZobristTTable.toTableMove(board, bestMove);
 		table.put(zkey, zrecord);
 		////////////////////////////////////////////////////////////////////////
 		
@@ -265,8 +347,13 @@ public class TranspositionNegaScout {
 	 */
 	public int IDNegaScoutSearch(Board board, int colour, int turn)
 	{
+		// Results kept from earlier turns give way to this turn's first.
+		table.nextGeneration();
+		
 		int depth = 1;
 		int[] bestScore = new int[absoluteMaxDepth];	// Really an array of best moves at a given depth.
+		moveStack.generate(board, 0, colour);
+		reuseRoot = true;
 		while (depth <= absoluteMaxDepth && System.currentTimeMillis() < endTime)
 		{
 			NegaScoutSearch(board, 0, depth, NEG_INFINITY, POS_INFINITY, colour, turn);
@@ -274,10 +361,12 @@ public class TranspositionNegaScout {
 			depthCompleted = depth;
 			depth++;
 		}
+		reuseRoot = false;
 		boolean found = false;
-		System.out.println("Total collisions:     " + table.collisions);
+		System.out.println("Table:                " + table);
 		System.out.println("Last depth attempted: " + depthCompleted);
 		System.out.println("Nodes expanded:       " + nodes);
+		System.out.println("Evaluations cached:   " + evalCache.hits + " of " + (evalCache.hits + evalCache.misses));
 		for (int i = bestScore.length-1; i >= 0; i--)
 		{
 			if (found)
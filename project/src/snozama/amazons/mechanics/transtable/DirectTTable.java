@@ -0,0 +1,428 @@
+package snozama.amazons.mechanics.transtable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A transposition table kept outside the Java heap.
+ * 
+ * Entries have the same layout as those of {@link ZobristTTable}: the key
+ * and a packed data word, in buckets of {@link ZobristTTable#BUCKET_SIZE}
+ * with the depth-preferred replacement policy and aging.  They are stored
+ * in direct buffers, or in buffers mapped from a file, instead of a
+ * {@code long[]}.  The garbage collector never scans or copies them, so a
+ * table of several gigabytes does not lengthen the pauses during a timed
+ * turn, and its size is not bounded by {@code -Xmx}.
+ * 
+ * A single buffer holds at most 2 GB, so the table is split into segments
+ * of {@link #SEGMENT_BYTES}, each a whole number of buckets.  Direct
+ * buffers are bounded by {@code -XX:MaxDirectMemorySize}, which defaults to
+ * the heap limit; mapped buffers are bounded only by the address space.
+ * {@link #availableMegabytes()} gives a size that fits the direct memory
+ * limit, and {@link #availableMegabytes(long)} one that also fits a limit
+ * of the caller's.
+ * 
+ * Like {@link ZobristTTable}, the table is for a single thread.
+ */
+public class DirectTTable implements TranspositionTable
+{
+	/**
+	 * The number of longs in an entry: the key and the data word.
+	 */
+	private static final int ENTRY_SIZE = 2;
+	
+	/**
+	 * The number of bytes in a bucket.
+	 */
+	private static final int BUCKET_BYTES = ZobristTTable.BUCKET_SIZE*ENTRY_SIZE*8;
+	
+	/**
+	 * The number of bytes in a segment.
+	 */
+	public static final int SEGMENT_BYTES = 1 << 30;
+	
+	/**
+	 * The number of buckets in a segment, as a shift.
+	 */
+	private static final int SEGMENT_SHIFT = 24;
+	
+	/**
+	 * Mask giving the bucket within its segment.
+	 */
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+	
+	/**
+	 * The size of the table in megabytes.
+	 */
+	public final int megabytes;
+	
+	/**
+	 * The number of buckets in the table.
+	 */
+	private final int buckets;
+	
+	/**
+	 * The segments of the hash table: {@code ENTRY_SIZE} longs per entry,
+	 * the key followed by the data word.
+	 */
+	private final LongBuffer[] segments;
+	
+	/**
+	 * The current generation, of which the table keeps the low six bits.
+	 */
+	private int generation;
+	
+	/**
+	 * The number of times an entry has been replaced by one for a different
+	 * position.
+	 */
+	public int collisions;
+	
+	/**
+	 * The number of probes made.
+	 */
+	public long probes;
+	
+	/**
+	 * The number of probes that found their position.
+	 */
+	public long hits;
+	
+	/**
+	 * Create a table in direct buffers.
+	 * 
+	 * @param megabytes	The size of the table in megabytes.
+	 */
+	public DirectTTable(int megabytes)
+	{
+		this.megabytes = megabytes;
+		buckets = bucketsFor(megabytes);
+		segments = new LongBuffer[segmentCount()];
+		for (int s = 0; s < segments.length; s++)
+		{
+			segments[s] = ByteBuffer.allocateDirect(segmentBytes(s))
+					.order(ByteOrder.nativeOrder()).asLongBuffer();
+		}
+	}
+	
+	/**
+	 * Create a table in buffers mapped from a file.  The file is emptied
+	 * first, so the table starts empty, and may be deleted once the table
+	 * is created on systems that keep mapped files until they are unmapped.
+	 * 
+	 * @param megabytes	The size of the table in megabytes.
+	 * @param file		The file to map.
+	 * @throws IOException	If the file cannot be resized or mapped.
+	 */
+	public DirectTTable(int megabytes, File file) throws IOException
+	{
+		this.megabytes = megabytes;
+		buckets = bucketsFor(megabytes);
+		segments = new LongBuffer[segmentCount()];
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try
+		{
+			raf.setLength(0);
+			raf.setLength((long)buckets*BUCKET_BYTES);
+			FileChannel channel = raf.getChannel();
+			for (int s = 0; s < segments.length; s++)
+			{
+				segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, (long)s*SEGMENT_BYTES, segmentBytes(s))
+						.order(ByteOrder.nativeOrder()).asLongBuffer();
+			}
+		}
+		finally
+		{
+			// The mappings stay valid once the file is closed.
+			raf.close();
+		}
+	}
+	
+	/**
+	 * Get the number of buckets that fit in a size.
+	 * 
+	 * @param megabytes	The size in megabytes.
+	 * @return			The number of buckets, at least one.
+	 */
+	private static int bucketsFor(int megabytes)
+	{
+		long bytes = (long)megabytes << 20;
+		return (int)Math.max(1, Math.min(bytes/BUCKET_BYTES, Integer.MAX_VALUE/ZobristTTable.BUCKET_SIZE));
+	}
+	
+	/**
+	 * Get the number of segments holding the buckets.
+	 * 
+	 * @return			The number of segments.
+	 */
+	private int segmentCount()
+	{
+		return ((buckets - 1) >>> SEGMENT_SHIFT) + 1;
+	}
+	
+	/**
+	 * Get the number of bytes of a segment; the last may be short.
+	 * 
+	 * @param segment	The index of the segment.
+	 * @return			The number of bytes.
+	 */
+	private int segmentBytes(int segment)
+	{
+		int count = Math.min(buckets - (segment << SEGMENT_SHIFT), 1 << SEGMENT_SHIFT);
+		return count*BUCKET_BYTES;
+	}
+	
+	/**
+	 * Choose a size for a table in direct buffers: most of the direct memory
+	 * the virtual machine allows, leaving some for other direct buffers.
+	 * 
+	 * @return			The size in megabytes, at least one.
+	 */
+	public static int availableMegabytes()
+	{
+		return availableMegabytes(Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Choose a size for a table in direct buffers, as
+	 * {@link #availableMegabytes()} but no larger than a limit of the
+	 * caller's, such as the physical memory set aside for the table.
+	 * 
+	 * @param maxBytes	The most bytes the table may take.
+	 * @return			The size in megabytes, at least one.
+	 */
+	public static int availableMegabytes(long maxBytes)
+	{
+		long limit = maxDirectMemory();
+		
+		// Leave some of the limit for other direct buffers.
+		long bytes = Math.min(maxBytes, limit - (limit >>> 3));
+		return (int)Math.max(1, Math.min(bytes >>> 20, Integer.MAX_VALUE));
+	}
+	
+	/**
+	 * Get the most direct memory the virtual machine allows: the value of
+	 * {@code -XX:MaxDirectMemorySize} if given, otherwise the heap limit.
+	 * 
+	 * @return			The limit in bytes.
+	 */
+	private static long maxDirectMemory()
+	{
+		String option = "-XX:MaxDirectMemorySize=";
+		for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments())
+		{
+			if (argument.startsWith(option))
+			{
+				String value = argument.substring(option.length()).toLowerCase();
+				int unit = "kmgt".indexOf(value.charAt(value.length() - 1)) + 1;
+				if (unit > 0)
+				{
+					value = value.substring(0, value.length() - 1);
+				}
+				try
+				{
+					return Long.parseLong(value) << (10*unit);
+				}
+				catch (NumberFormatException e)
+				{
+					break;
+				}
+			}
+		}
+		return Runtime.getRuntime().maxMemory();
+	}
+	
+	/**
+	 * Start a new generation, usually once per turn.  Entries not used
+	 * since are replaced before any others.
+	 */
+	public void nextGeneration()
+	{
+		generation++;
+	}
+	
+	/**
+	 * Add entry to transposition table.
+	 * 
+	 * @param key		The key of the location to place the value in.
+	 * @param depth		The depth searched below the board, 0 to
+	 * 					{@link ZobristTTable#MAX_DEPTH}.
+	 * @param flag		{@code LOWER_BOUND}, {@code EXACT_SCORE} or
+	 * 					{@code UPPER_BOUND}.
+	 * @param score		The score found for the board.
+	 * @param move		The {@code MoveManager} encoded move data that
+	 * 					represents the best move for this board.
+	 * @return			{@code true} if the value was added, {@code false}
+	 * 					if the entries already there were kept.
+	 */
+	public boolean put(long key, int depth, int flag, int score, int move)
+	{
+		int bucket = bucketOf(key);
+		LongBuffer segment = segments[bucket >>> SEGMENT_SHIFT];
+		int first = (bucket & SEGMENT_MASK)*ZobristTTable.BUCKET_SIZE*ENTRY_SIZE;
+		int end = first + ZobristTTable.BUCKET_SIZE*ENTRY_SIZE;
+		int current = generation & ZobristTTable.AGE_MASK;
+		
+		// The same position if it is there, otherwise an empty entry, the
+		// shallowest entry from an earlier generation or the shallowest
+		// entry, in that order.
+		int index = -1;
+		int victim = first;
+		int bestRank = Integer.MAX_VALUE;
+		for (int i = first; i < end; i += ENTRY_SIZE)
+		{
+			long data = segment.get(i + 1);
+			if (data == ZobristTTable.MISS)
+			{
+				if (bestRank > Integer.MIN_VALUE)
+				{
+					bestRank = Integer.MIN_VALUE;
+					victim = i;
+				}
+				continue;
+			}
+			if (segment.get(i) == key)
+			{
+				index = i;
+				break;
+			}
+			
+			int rank = ZobristTTable.depthOf(data);
+			if (ZobristTTable.ageOf(data) != current)
+			{
+				rank -= 1 << 16;
+			}
+			if (rank < bestRank)
+			{
+				bestRank = rank;
+				victim = i;
+			}
+		}
+		
+		if (index == -1)
+		{
+			// A deeper current entry is kept.
+			if (bestRank > depth)
+			{
+				return false;
+			}
+			index = victim;
+			if (segment.get(index + 1) != ZobristTTable.MISS)
+			{
+				collisions++;
+			}
+		}
+		
+		segment.put(index, key);
+		segment.put(index + 1, ZobristTTable.pack(depth, flag, score, move, current));
+		return true;
+	}
+	
+	/**
+	 * Add entry to transposition table.
+	 * 
+	 * @param key		The key of the location to place the value in.
+	 * @param record	The record that is to be stored.
+	 * @return			{@code true} if the value was added, {@code false}
+	 * 					otherwise.
+	 */
+	public boolean put(long key, int[] record)
+	{
+		return put(key, record[ZobristTTable.DEPTH], record[ZobristTTable.FLAG],
+				record[ZobristTTable.SCORE], record[ZobristTTable.MOVE]);
+	}
+	
+	/**
+	 * Look a key up in the table.
+	 * 
+	 * @param key		The key of the entry to retrieve.
+	 * @return			The data word stored for the key, read with
+	 * 					{@link ZobristTTable#depthOf(long)} and its siblings,
+	 * 					or {@link ZobristTTable#MISS}.
+	 */
+	public long probe(long key)
+	{
+		int bucket = bucketOf(key);
+		LongBuffer segment = segments[bucket >>> SEGMENT_SHIFT];
+		int first = (bucket & SEGMENT_MASK)*ZobristTTable.BUCKET_SIZE*ENTRY_SIZE;
+		probes++;
+		
+		for (int i = first; i < first + ZobristTTable.BUCKET_SIZE*ENTRY_SIZE; i += ENTRY_SIZE)
+		{
+			long data = segment.get(i + 1);
+			if (data != ZobristTTable.MISS && segment.get(i) == key)
+			{
+				// The entry is still in use.
+				hits++;
+				data = ZobristTTable.withAge(data, generation);
+				segment.put(i + 1, data);
+				return data;
+			}
+		}
+		return ZobristTTable.MISS;
+	}
+	
+	/**
+	 * Look a key up in the table, filling a record owned by the caller.
+	 * 
+	 * @param key		The key of the entry to retrieve.
+	 * @param record	The record to fill, of
+	 * 					{@link ZobristTTable#RECORD_SIZE} ints.
+	 * @return			{@code true} if the key was found, {@code false} if
+	 * 					not, in which case the record's {@code DEPTH} is set
+	 * 					to -1.
+	 */
+	public boolean probe(long key, int[] record)
+	{
+		long data = probe(key);
+		if (data == ZobristTTable.MISS)
+		{
+			record[ZobristTTable.DEPTH] = -1;
+			return false;
+		}
+		
+		record[ZobristTTable.DEPTH] = ZobristTTable.depthOf(data);
+		record[ZobristTTable.FLAG] = ZobristTTable.flagOf(data);
+		record[ZobristTTable.SCORE] = ZobristTTable.scoreOf(data);
+		record[ZobristTTable.MOVE] = ZobristTTable.moveOf(data);
+		return true;
+	}
+	
+	/**
+	 * Get the bucket a key belongs in.
+	 * 
+	 * @param key		The key.
+	 * @return			The index of the bucket.
+	 */
+	private int bucketOf(long key)
+	{
+		return (int)((key & Long.MAX_VALUE) % buckets);
+	}
+	
+	/**
+	 * Get the number of entries of the transposition table.
+	 * 
+	 * @return			The number of records the table can store.
+	 */
+	public int size()
+	{
+		return buckets*ZobristTTable.BUCKET_SIZE;
+	}
+	
+	/**
+	 * Describe how the table has been used.
+	 * 
+	 * @return			The hits, probes and collisions.
+	 */
+	public String toString()
+	{
+		return hits + " hits of " + probes + ", " + collisions + " collisions";
+	}
+}
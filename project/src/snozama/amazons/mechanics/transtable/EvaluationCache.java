@@ -0,0 +1,118 @@
+package snozama.amazons.mechanics.transtable;
+
+import java.util.Arrays;
+
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Evaluator;
+
+/**
+ * A fixed size cache of static evaluations, keyed by the Zobrist hash of
+ * the board (see {@link ZobristTTable#computeBoardHash(Board, int)}).
+ * 
+ * Each key has one slot for each side to move.  The cache is lossy: a new
+ * evaluation simply replaces whatever was in its slot.  The full key is
+ * kept in the slot, so an evaluation is only ever returned for the key it
+ * was stored under.
+ * 
+ * A position always has the same number of arrows, and therefore comes up
+ * on the same turn, so the turn is not part of the key.
+ */
+public class EvaluationCache
+{
+	/**
+	 * The number of keys a cache holds if no size is given.
+	 */
+	public static final int DEFAULT_SIZE = 1 << 16;
+	
+	/**
+	 * The number of keys of a cache a search makes for itself when it is not
+	 * given one.  Such a cache only lives as long as the search, so it is
+	 * kept small; share a {@link #DEFAULT_SIZE} cache between searches to
+	 * keep evaluations from one to the next.
+	 */
+	public static final int SEARCH_SIZE = 1 << 12;
+	
+	/**
+	 * Marks a slot that holds no evaluation.  A board whose key happens to
+	 * be exactly this would read an evaluation of 0; with 64-bit keys that
+	 * is not worth a separate flag.
+	 */
+	private static final long EMPTY = -1;
+	
+	/**
+	 * The number of keys the cache can hold.
+	 */
+	public final int size;
+	
+	/**
+	 * The key stored in each slot.  Slot {@code 2*(key % size) + colour}
+	 * belongs to the key with {@code colour} to move.
+	 */
+	private final long[] keys;
+	
+	/**
+	 * The evaluation stored in each slot.
+	 */
+	private final int[] values;
+	
+	/**
+	 * The number of evaluations found in the cache.
+	 */
+	public long hits;
+	
+	/**
+	 * The number of evaluations that had to be computed.
+	 */
+	public long misses;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param size		The number of keys the cache can hold.
+	 */
+	public EvaluationCache(int size)
+	{
+		this.size = size;
+		keys = new long[2*size];
+		values = new int[2*size];
+		clear();
+	}
+	
+	/**
+	 * Evaluate a board, using the cached evaluation if there is one and
+	 * storing the evaluation otherwise.
+	 * 
+	 * @param evaluator		The evaluator to compute missing evaluations with.
+	 * @param key			The Zobrist hash of the board.
+	 * @param board			The board to evaluate.
+	 * @param colour		The colour of the player to move.
+	 * @param turn			The current turn number.
+	 * @return				The evaluation of the board for the player to
+	 * 						move.
+	 */
+	public int evaluate(Evaluator evaluator, long key, Board board, int colour, int turn)
+	{
+		int slot = 2*(int)((key & Long.MAX_VALUE) % size) + colour;
+		if (keys[slot] == key)
+		{
+			hits++;
+			return values[slot];
+		}
+		
+		misses++;
+		int value = evaluator.evaluate(board, colour, turn);
+		keys[slot] = key;
+		values[slot] = value;
+		return value;
+	}
+	
+	/**
+	 * Forget every stored evaluation and reset the counters.
+	 */
+	public void clear()
+	{
+		Arrays.fill(keys, EMPTY);
+		hits = 0;
+		misses = 0;
+	}
+}
@@ -0,0 +1,231 @@
+package snozama.amazons.mechanics.transtable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A transposition table that any number of search threads may probe and
+ * store into at once, without locks.
+ * 
+ * Entries use the packed data word of {@link ZobristTTable}, in buckets of
+ * {@link ZobristTTable#BUCKET_SIZE} with the depth-preferred replacement
+ * policy and aging.  Two threads storing into one entry at the same time
+ * can leave it holding the key word of one and the data word of the other,
+ * so the key word is not the key itself but the key XORed with the data
+ * word (Hyatt and Mann, "A lockless transposition table implementation for
+ * parallel search").  A probe XORs the two words back together and only
+ * accepts the entry if the result is its key: a torn entry gives some
+ * other value and is treated as a miss.  Each word is read and written as
+ * a whole through an {@link AtomicLongArray}, so no word is ever torn in
+ * half.
+ * 
+ * Probes only read.  Unlike {@link ZobristTTable}, entries found are not
+ * restamped with the current generation, which would take a second write
+ * racing with other threads' stores.
+ */
+public class SharedTTable implements TranspositionTable
+{
+	/**
+	 * The number of longs in an entry: the key word and the data word.
+	 */
+	private static final int ENTRY_SIZE = 2;
+	
+	/**
+	 * The number of entries the table was asked to hold.
+	 */
+	public final int size;
+	
+	/**
+	 * The number of buckets in the table.
+	 */
+	private final int buckets;
+	
+	/**
+	 * The current generation.
+	 */
+	private volatile int generation;
+	
+	/**
+	 * The hash table: {@code ENTRY_SIZE} longs per entry, the key XORed with
+	 * the data word followed by the data word.
+	 */
+	private final AtomicLongArray entries;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param size		The number of entries, rounded up to whole buckets.
+	 */
+	public SharedTTable(int size)
+	{
+		this.size = size;
+		buckets = Math.max(1, (size + ZobristTTable.BUCKET_SIZE - 1)/ZobristTTable.BUCKET_SIZE);
+		entries = new AtomicLongArray(buckets*ZobristTTable.BUCKET_SIZE*ENTRY_SIZE);
+	}
+	
+	/**
+	 * Start a new generation, usually once per turn by one thread while no
+	 * search is running.  Entries stored before are replaced first.
+	 */
+	public void nextGeneration()
+	{
+		generation++;
+	}
+	
+	/**
+	 * Add entry to transposition table.
+	 * 
+	 * @param key		The key of the location to place the value in.
+	 * @param depth		The depth searched below the board, 0 to
+	 * 					{@link ZobristTTable#MAX_DEPTH}.
+	 * @param flag		{@code LOWER_BOUND}, {@code EXACT_SCORE} or
+	 * 					{@code UPPER_BOUND}.
+	 * @param score		The score found for the board.
+	 * @param move		The {@code MoveManager} encoded move data that
+	 * 					represents the best move for this board.
+	 * @return			{@code true} if the value was added, {@code false}
+	 * 					if the entries already there were kept.
+	 */
+	public boolean put(long key, int depth, int flag, int score, int move)
+	{
+		int current = generation & ZobristTTable.AGE_MASK;
+		int bucket = bucketOf(key);
+		int end = bucket + ZobristTTable.BUCKET_SIZE*ENTRY_SIZE;
+		
+		// The same position if it is there, otherwise an empty entry, an
+		// entry from an earlier generation or the shallowest entry, in that
+		// order.
+		int index = -1;
+		int bestRank = Integer.MAX_VALUE;
+		for (int i = bucket; i < end; i += ENTRY_SIZE)
+		{
+			long data = entries.get(i + 1);
+			if (data == ZobristTTable.MISS)
+			{
+				if (bestRank > Integer.MIN_VALUE)
+				{
+					bestRank = Integer.MIN_VALUE;
+					index = i;
+				}
+				continue;
+			}
+			if ((entries.get(i) ^ data) == key)
+			{
+				index = i;
+				break;
+			}
+			
+			int rank = ZobristTTable.depthOf(data);
+			if (ZobristTTable.ageOf(data) != current)
+			{
+				rank -= 1 << 16;
+			}
+			else if (rank > depth)
+			{
+				// Deeper current entries are kept.
+				continue;
+			}
+			if (rank < bestRank)
+			{
+				bestRank = rank;
+				index = i;
+			}
+		}
+		
+		if (index == -1)
+		{
+			return false;
+		}
+		
+		long data = ZobristTTable.pack(depth, flag, score, move, current);
+		entries.lazySet(index, key ^ data);
+		entries.lazySet(index + 1, data);
+		return true;
+	}
+	
+	/**
+	 * Add entry to transposition table.
+	 * 
+	 * @param key		The key of the location to place the value in.
+	 * @param record	The record that is to be stored.
+	 * @return			{@code true} if the value was added, {@code false}
+	 * 					otherwise.
+	 */
+	public boolean put(long key, int[] record)
+	{
+		return put(key, record[ZobristTTable.DEPTH], record[ZobristTTable.FLAG],
+				record[ZobristTTable.SCORE], record[ZobristTTable.MOVE]);
+	}
+	
+	/**
+	 * Look a key up in the table.
+	 * 
+	 * @param key		The key of the entry to retrieve.
+	 * @return			The data word stored for the key, read with
+	 * 					{@link ZobristTTable#depthOf(long)} and its siblings,
+	 * 					or {@link ZobristTTable#MISS}.
+	 */
+	public long probe(long key)
+	{
+		int bucket = bucketOf(key);
+		int end = bucket + ZobristTTable.BUCKET_SIZE*ENTRY_SIZE;
+		
+		for (int i = bucket; i < end; i += ENTRY_SIZE)
+		{
+			// Read the data word once, so the check and the result agree.
+			long data = entries.get(i + 1);
+			if (data != ZobristTTable.MISS && (entries.get(i) ^ data) == key)
+			{
+				return data;
+			}
+		}
+		return ZobristTTable.MISS;
+	}
+	
+	/**
+	 * Look a key up in the table, filling a record owned by the caller.
+	 * 
+	 * @param key		The key of the entry to retrieve.
+	 * @param record	The record to fill, of
+	 * 					{@link ZobristTTable#RECORD_SIZE} ints.
+	 * @return			{@code true} if the key was found, {@code false} if
+	 * 					not, in which case the record's {@code DEPTH} is set
+	 * 					to -1.
+	 */
+	public boolean probe(long key, int[] record)
+	{
+		long data = probe(key);
+		if (data == ZobristTTable.MISS)
+		{
+			record[ZobristTTable.DEPTH] = -1;
+			return false;
+		}
+		
+		record[ZobristTTable.DEPTH] = ZobristTTable.depthOf(data);
+		record[ZobristTTable.FLAG] = ZobristTTable.flagOf(data);
+		record[ZobristTTable.SCORE] = ZobristTTable.scoreOf(data);
+		record[ZobristTTable.MOVE] = ZobristTTable.moveOf(data);
+		return true;
+	}
+	
+	/**
+	 * Get the position in the hash table of the bucket a key belongs in.
+	 * 
+	 * @param key		The key.
+	 * @return			The index of the first entry of the bucket.
+	 */
+	private int bucketOf(long key)
+	{
+		return ZobristTTable.BUCKET_SIZE*ENTRY_SIZE*(int)((key & Long.MAX_VALUE) % buckets);
+	}
+	
+	/**
+	 * Get the number of entries of the transposition table, counting whole
+	 * buckets.
+	 * 
+	 * @return			The number of records the table can store.
+	 */
+	public int size()
+	{
+		return entries.length() / ENTRY_SIZE;
+	}
+}
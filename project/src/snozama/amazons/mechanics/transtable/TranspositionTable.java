@@ -1,5 +1,43 @@
 package snozama.amazons.mechanics.transtable;
 
-public interface TranspositionTable {
-
+/**
+ * A table of search results, keyed by the Zobrist hash of the position and
+ * the side to move.  Records are laid out as described by
+ * {@link ZobristTTable#RECORD_SIZE} and its siblings.
+ */
+public interface TranspositionTable
+{
+	/**
+	 * Start a new generation, usually once per turn.  Entries not used
+	 * since are replaced before any others.
+	 */
+	public void nextGeneration();
+	
+	/**
+	 * Add entry to transposition table.
+	 * 
+	 * @param key		The key of the location to place the value in.
+	 * @param record	The record that is to be stored.
+	 * @return			{@code true} if the value was added, {@code false}
+	 * 					otherwise.
+	 */
+	public boolean put(long key, int[] record);
+	
+	/**
+	 * Look a key up in the table, filling a record owned by the caller.
+	 * 
+	 * @param key		The key of the entry to retrieve.
+	 * @param record	The record to fill.
+	 * @return			{@code true} if the key was found, {@code false} if
+	 * 					not, in which case the record's {@code DEPTH} is set
+	 * 					to -1.
+	 */
+	public boolean probe(long key, int[] record);
+	
+	/**
+	 * Get the number of entries of the transposition table.
+	 * 
+	 * @return			The number of records the table can store.
+	 */
+	public int size();
 }
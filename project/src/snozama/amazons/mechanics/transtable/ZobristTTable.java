@@ -8,6 +8,33 @@ import snozama.amazons.mechanics.MoveManager;
 /**
  * A transposition table using Zobrist hashing.
  * 
+ * Keys are 64 bits and include the side to move, so a position reached
+ * with either player to move has two distinct keys.  Each entry is two
+ * longs: the full key, and the depth, bound, score, move and generation
+ * packed into one data word.  A probe only returns an entry whose key
+ * matches, so a hit can be trusted without checking the stored move is
+ * legal.  Stored moves name their amazon by its square rather than its
+ * index, see {@link #toTableMove(Board, int)}.  Probes either return the
+ * data word, read with {@link #depthOf(long)} and its siblings, or fill a
+ * record owned by the caller, so searching allocates nothing.
+ * 
+ * Entries are grouped in buckets of {@link #BUCKET_SIZE}, one cache line,
+ * and a key may be stored in any entry of its bucket.  When the bucket is
+ * full, the entry given up is chosen by the table's replacement policy
+ * (after Breuker, Uiterwijk and van den Herik, "Replacement Schemes for
+ * Transposition Tables"):
+ * 	{@link #ALWAYS_REPLACE} always stores the new entry over the shallowest.
+ * 	{@link #DEPTH_PREFERRED} keeps the shallowest entry if it is deeper
+ * 		than the new one.
+ * 	{@link #TWO_TIER} keeps half the bucket for the deepest entries and
+ * 		the other half for the newest; an entry pushed out of the deep half
+ * 		moves to the new half.
+ * Every entry is stamped with the generation it was last used in, and
+ * {@link #nextGeneration()} starts a new one.  Entries from earlier
+ * generations are given up first, whatever their depth, so a table kept
+ * from turn to turn does not fill up with deep results from positions
+ * that can no longer arise.
+ * 
  * @author Graeme Douglas
  *
  */
@@ -34,7 +61,8 @@ public class ZobristTTable implements TranspositionTable
 	public final int size;
 	
 	/**
-	 * The position of the score within the stored record.
+	 * The position of the side to move within a record.  Not stored in the
+	 * table, as the key already includes it.
 	 */
 	public static final int POS_INFO = 0;
 	
@@ -59,33 +87,117 @@ public class ZobristTTable implements TranspositionTable
 	public static final int MOVE  = 4;
 	
 	/**
-	 * The number of collisions that have occurred so far.
+	 * The number of values in a record.
+	 */
+	public static final int RECORD_SIZE = 5;
+	
+	/**
+	 * The number of entries in a bucket.
+	 */
+	public static final int BUCKET_SIZE = 4;
+	
+	/**
+	 * The number of longs in an entry: the key and the data.
+	 */
+	private static final int ENTRY_SIZE = 2;
+	
+	/**
+	 * The greatest depth an entry can hold.
+	 */
+	public static final int MAX_DEPTH = 126;
+	
+	/**
+	 * Replacement policy: the new entry is always stored.
+	 */
+	public static final int ALWAYS_REPLACE = 0;
+	
+	/**
+	 * Replacement policy: the new entry is stored unless every entry of the
+	 * bucket is from this generation and deeper.
+	 */
+	public static final int DEPTH_PREFERRED = 1;
+	
+	/**
+	 * Replacement policy: half of each bucket is depth preferred and the
+	 * other half always replaced.
+	 */
+	public static final int TWO_TIER = 2;
+	
+	/*
+	 * Layout of the data word, from the low bits up: the score (32 bits),
+	 * the move (17 bits), the bound plus one (2 bits), the depth plus one
+	 * (7 bits) and the generation (6 bits).  The depth plus one is never 0
+	 * for a stored entry, so a data word of 0 marks an empty entry.
+	 */
+	private static final int MOVE_SHIFT = 32;
+	private static final int FLAG_SHIFT = 49;
+	private static final int DEPTH_SHIFT = 51;
+	private static final int AGE_SHIFT = 58;
+	private static final long MOVE_MASK = (1L << 17) - 1;
+	private static final long FLAG_MASK = 0x3;
+	private static final long DEPTH_MASK = 0x7f;
+	static final int AGE_MASK = 0x3f;
+	
+	/**
+	 * Returned by {@link #probe(long)} when the key is not in the table.
+	 */
+	public static final long MISS = 0;
+	
+	/**
+	 * The replacement policy of the table.
+	 */
+	public final int policy;
+	
+	/**
+	 * The number of buckets in the table.
+	 */
+	private final int buckets;
+	
+	/**
+	 * The current generation, of which the table keeps the low six bits.
+	 */
+	private int generation;
+	
+	/**
+	 * The number of times an entry has been replaced by one for a different
+	 * position.
 	 */
 	public int collisions;
 	
+	/**
+	 * The number of probes made.
+	 */
+	public long probes;
+	
+	/**
+	 * The number of probes that found their position.
+	 */
+	public long hits;
+	
 	public static final int LOWER_BOUND = -1;
 	public static final int EXACT_SCORE = 0;
 	public static final int UPPER_BOUND = 1;
 	
 	/**
-	 * Table storing all possible Zobrist values.
+	 * Seed of the Zobrist values.  The values are fixed so that every table,
+	 * and anything else keyed by board hashes, agrees on the hash of a board
+	 * from one search and one turn to the next.
 	 */
-	private final int[][][] zobristValues;
+	private static final long SEED = 322;
 	
 	/**
-	 * The hash table.  The key is the result of the Zobrist hash; the record
-	 * is a long with all the relevant information.
+	 * Table storing all possible Zobrist values.
 	 */
-	public int[] hashTable;
+	private static final long[][][] zobristValues = new long[3][10][10];
 	
 	/**
-	 * Default constructor for the transposition table.
+	 * Zobrist value of black being the player to move.
 	 */
-	public ZobristTTable(int size)
+	private static final long BLACK_TO_MOVE;
+	
+	static
 	{
-		zobristValues = new int[3][10][10];
-		
-		Random rand = new Random();
+		Random rand = new Random(SEED);
 		
 		// Create the Zobrist value lookup.
 		for (int t = 0; t < zobristValues.length; t++)
@@ -94,74 +206,82 @@ public class ZobristTTable implements TranspositionTable
 			{
 				for (int j = 0; j < zobristValues[t][i].length; j++)
 				{
-					zobristValues[t][i][j] = rand.nextInt(Integer.MAX_VALUE);
+					zobristValues[t][i][j] = rand.nextLong();
 				}
 			}
 		}
-		
+		BLACK_TO_MOVE = rand.nextLong();
+	}
+	
+	/**
+	 * The hash table: {@code ENTRY_SIZE} longs per entry, the key followed
+	 * by the data word.
+	 */
+	private final long[] entries;
+	
+	/**
+	 * Default constructor for the transposition table, with the
+	 * depth-preferred replacement policy.
+	 * 
+	 * @param size		The number of entries, rounded up to whole buckets.
+	 */
+	public ZobristTTable(int size)
+	{
+		this(size, DEPTH_PREFERRED);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param size		The number of entries, rounded up to whole buckets.
+	 * @param policy	The replacement policy: {@code ALWAYS_REPLACE},
+	 * 					{@code DEPTH_PREFERRED} or {@code TWO_TIER}.
+	 */
+	public ZobristTTable(int size, int policy)
+	{
 		this.size = size;
+		this.policy = policy;
+		buckets = Math.max(1, (size + BUCKET_SIZE - 1)/BUCKET_SIZE);
 		
 		collisions = 0;
 		
-		hashTable = new int[size*5];
-		for (int i = 0; i < size; i++)
-		{
-			hashTable[(5*i)+DEPTH] = -1;
-		}
+		entries = new long[buckets*BUCKET_SIZE*ENTRY_SIZE];
+	}
+	
+	/**
+	 * Start a new generation, usually once per turn.  Entries not used
+	 * since are replaced before any others.
+	 */
+	public void nextGeneration()
+	{
+		generation++;
+	}
+	
+	/**
+	 * Computes the hash of the board with white to move.
+	 * 
+	 * @param board		The board compute the hash of.
+	 * @return			The computed zobrist hash of the board.
+	 */
+	public static long computeBoardHash(Board board)
+	{
+		return computeBoardHash(board, Board.WHITE);
 	}
 	
 	/**
 	 * Computes the hash of the board.
 	 * 
 	 * @param board		The board compute the hash of.
+	 * @param colour	The colour of the player to move.
 	 * @return			The computed zobrist hash of the board.
 	 */
-	public int computeBoardHash(Board board)
+	public static long computeBoardHash(Board board, int colour)
 	{
-		int hashed = 0;
-		
-		int i = 0;
-		int j = 0;
-		
-		// Find first value that needs to be hashed.
-		for (; i < 10; i++)
-		{
-			for (; j < 10; j++)
-			{
-				if (!board.isOccupied(i, j))
-					continue;
-				
-				
-				if (board.isWhite(i, j))
-				{
-					hashed = zobristValues[WHITE_AMAZON][i][j];
-				}
-				else if (board.isBlack(i, j))
-				{
-					hashed = zobristValues[BLACK_AMAZON][i][j];
-				}
-				else
-				{
-					hashed = zobristValues[ARROW][i][j];
-				}
-				
-				if (hashed != 0)
-				{
-					break;
-				}
-			}
-			
-			if (hashed != 0)
-			{
-				j++;
-				break;
-			}
-		}
+		long hashed = colour == Board.BLACK ? BLACK_TO_MOVE : 0;
 		
-		// Proceed as normal.
-		for (; i < 10; i++)
+		for (int i = 0; i < 10; i++)
 		{
-			for (; j < 10; j++)
+			for (int j = 0; j < 10; j++)
 			{
 				if (board.isWhite(i, j))
 				{
@@ -176,7 +296,6 @@ public class ZobristTTable implements TranspositionTable
 					hashed ^= zobristValues[ARROW][i][j];
 				}
 			}
-			j = 0;
 		}
 		
 		return hashed;
@@ -184,8 +303,8 @@ public class ZobristTTable implements TranspositionTable
 	
 	/**
 	 * Update a generated key based on move values. Can be used to apply
-	 * or undo a move. Note that the garbage in, garbage out principle
-	 * applies.
+	 * or undo a move; either way the player to move changes. Note that the
+	 * garbage in, garbage out principle applies.
 	 * 
 	 * @param key		The key to be updated.
 	 * @param colour	The player colour (note, should use static constants
@@ -198,95 +317,156 @@ public class ZobristTTable implements TranspositionTable
 	 * @param acol		The column the arrow was placed in.
 	 * @return			The updated key.
 	 */
-	public int updateHashKeyByMove(int key, int colour, int row_s, int col_s, int row_f, int col_f, int arow, int acol)
+	public static long updateHashKeyByMove(long key, int colour, int row_s, int col_s, int row_f, int col_f, int arow, int acol)
 	{
 		// General principle here: garbage in, garbage out.  Don't make bad calls.
 		key ^= zobristValues[colour][row_s][col_s];
 		key ^= zobristValues[colour][row_f][col_f];
 		key ^= zobristValues[ARROW][arow][acol];
+		key ^= BLACK_TO_MOVE;
 		
 		return key;
 	}
 	
-	public int updateHashKeyByMove(int key, int move, int row_s, int col_s)
+	/**
+	 * Update a generated key by an encoded move.  Can be used to apply or
+	 * undo a move.
+	 * 
+	 * @param key		The key to be updated.
+	 * @param move		The {@code MoveManager} encoded move.
+	 * @param row_s		The row that the moved amazon started from.
+	 * @param col_s		The column that the moved amazon started from.
+	 * @return			The updated key.
+	 */
+	public static long updateHashKeyByMove(long key, int move, int row_s, int col_s)
 	{
-		int[] decoded = MoveManager.decodeMove(move);
 		return updateHashKeyByMove(key,
-				decoded[MoveManager.PLAYER_COLOUR],
+				MoveManager.colourOf(move),
 				row_s,
 				col_s,
-				decoded[MoveManager.AMAZON_ROW_FINISH],
-				decoded[MoveManager.AMAZON_COLUMN_FINISH],
-				decoded[MoveManager.ARROW_ROW],
-				decoded[MoveManager.ARROW_COLUMN]);
+				MoveManager.finishRowOf(move),
+				MoveManager.finishColumnOf(move),
+				MoveManager.arrowRowOf(move),
+				MoveManager.arrowColumnOf(move));
 	}
 	
 	/**
-	 * Add entry to transposition table.
+	 * Convert a move to the form kept in the table.  A move names its amazon
+	 * by the amazon's index on the board, but keys only see which squares
+	 * the amazons are on, and the same position can be reached with the
+	 * amazons of a colour in another order.  The table's form names the
+	 * amazon by the rank of its square among the squares of its colour's
+	 * amazons instead, which every board with the key agrees on.
+	 * 
+	 * @param board		The board the move is made on.
+	 * @param move		The {@code MoveManager} encoded move, or 0 for none.
+	 * @return			The move in the table's form, or 0 for none.
+	 */
+	public static int toTableMove(Board board, int move)
+	{
+		if (move == 0)
+		{
+			return 0;
+		}
+		
+		int colour = MoveManager.colourOf(move);
+		int rank = rankOf(board.amazons[colour], MoveManager.amazonIndexOf(move));
+		return MoveManager.encodeMove(colour, rank, MoveManager.finishSquareOf(move), MoveManager.arrowSquareOf(move));
+	}
+	
+	/**
+	 * Convert a move from the form kept in the table back to the amazon
+	 * indices of a board; see {@link #toTableMove(Board, int)}.
+	 * 
+	 * @param board		The board the move is to be made on.
+	 * @param move		The move in the table's form, or 0 for none.
+	 * @return			The {@code MoveManager} encoded move, or 0 for none.
+	 */
+	public static int fromTableMove(Board board, int move)
+	{
+		if (move == 0)
+		{
+			return 0;
+		}
+		
+		int colour = MoveManager.colourOf(move);
+		int rank = MoveManager.amazonIndexOf(move);
+		byte[] amazons = board.amazons[colour];
+		for (int i = 0; i < amazons.length; i++)
+		{
+			if (rankOf(amazons, i) == rank)
+			{
+				return MoveManager.encodeMove(colour, i, MoveManager.finishSquareOf(move), MoveManager.arrowSquareOf(move));
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Get the rank of an amazon's square among the squares of its colour's
+	 * amazons.
+	 * 
+	 * @param amazons	The encoded positions of the colour's amazons.
+	 * @param index		The index of the amazon.
+	 * @return			The number of the colour's amazons on lower squares.
+	 */
+	private static int rankOf(byte[] amazons, int index)
+	{
+		int rank = 0;
+		for (int i = 0; i < amazons.length; i++)
+		{
+			if (amazons[i] < amazons[index])
+			{
+				rank++;
+			}
+		}
+		return rank;
+	}
+	
+	/**
+	 * Add entry to transposition table, for the board with white to move.
 	 * 
 	 * @param board		The board (position) that is to be hashed.
-	 * @param prev_move	The move that produced this board.
-	 * @param depth		The depth of the board to be hashed.
-	 * @param lower		The lower bound used to find the score of the hashed
-	 * 					board.
-	 * @param upper		The upper bound used to find the value of the hashed
-	 * 					board.
+	 * @param depth		The depth searched below the board, 0 to
+	 * 					{@code MAX_DEPTH}.
+	 * @param flag		{@code LOWER_BOUND}, {@code EXACT_SCORE} or
+	 * 					{@code UPPER_BOUND}.
+	 * @param score		The score found for the board.
 	 * @param move		The {@code MoveManager} encoded move data that represents
 	 * 					the best move for this position.
 	 * @return			{@code true} if the value was added properly,
 	 * 					{@code false} otherwise.
 	 */
-	public boolean put(Board board, int prev_move, int depth, int lower, int upper, int move)
+	public boolean put(Board board, int depth, int flag, int score, int move)
 	{
-		int key = computeBoardHash(board) % size;
-		key *= 5;
-		
-		// For now, we will use the "newest" replacement strategy.
-		if (get(key)[DEPTH] != -1)
-		{
-			collisions++;
-		}
-		
-		hashTable[(key)+POS_INFO] = prev_move;
-		hashTable[(key)+DEPTH] = depth;
-		hashTable[(key)+FLAG] = lower;
-		hashTable[(key)+SCORE] = upper;
-		hashTable[(key)+MOVE]  = move;
-		
-		return true;
+		return put(computeBoardHash(board), depth, flag, score, move);
 	}
 	
 	/**
 	 * Add entry to transposition table.
 	 * 
 	 * @param key		The key of the location to place the value in.
-	 * @param prev_move	The score of the board to be hashed.
-	 * @param depth		The depth of the board to be hashed.
-	 * @param lower		The lower bound used to find the score of the hashed
-	 * 					board.
-	 * @param upper		The upper bound used to find the value of the hashed
-	 * 					board.
+	 * @param depth		The depth searched below the board, 0 to
+	 * 					{@code MAX_DEPTH}.
+	 * @param flag		{@code LOWER_BOUND}, {@code EXACT_SCORE} or
+	 * 					{@code UPPER_BOUND}.
+	 * @param score		The score found for the board.
 	 * @param move		The {@code MoveManager} encoded move data that
 	 * 					represents the best move for this board.
 	 * @return			{@code true} if the value was added properly,
-	 * 					{@code false} otherwise.
+	 * 					{@code false} if the replacement policy kept the
+	 * 					entries already there.
 	 */
-	public boolean put(int key, int prev_move, int depth, int lower, int upper, int move)
+	public boolean put(long key, int depth, int flag, int score, int move)
 	{
-		key %= size;
-		key *= 5;
-		// For now, we will use the "newest" replacement strategy.
-		if (hashTable[key+DEPTH] != -1)
+		int index = claim(key, depth);
+		if (index == -1)
 		{
-			collisions++;
+			return false;
 		}
 		
-		hashTable[(key)+POS_INFO] = prev_move;
-		hashTable[(key)+DEPTH] = depth;
-		hashTable[(key)+FLAG] = lower;
-		hashTable[(key)+SCORE] = upper;
-		hashTable[(key)+MOVE]  = move;
-		
+		entries[index] = key;
+		entries[index + 1] = pack(depth, flag, score, move, generation);
 		return true;
 	}
 	
@@ -298,66 +478,319 @@ public class ZobristTTable implements TranspositionTable
 	 * @return			{@code true} if the value was added properly,
 	 * 					{@code false} otherwise.
 	 */
-	public boolean put(int key, int[] record)
+	public boolean put(long key, int[] record)
+	{
+		return put(key, record[DEPTH], record[FLAG], record[SCORE], record[MOVE]);
+	}
+	
+	/**
+	 * Find the entry to store a key in.  Entries pushed into another entry
+	 * of the bucket are moved before returning.
+	 * 
+	 * @param key		The key being stored.
+	 * @param depth		The depth of the entry being stored.
+	 * @return			The index of the entry in the hash table, or -1 if
+	 * 					the policy keeps the entries already there.
+	 */
+	private int claim(long key, int depth)
 	{
-		key %= size;
-		key *= 5;
-		// For now, we will use the "newest" replacement strategy.
-		if (hashTable[key+DEPTH] != -1)
+		int bucket = bucketOf(key);
+		
+		// A position already in the bucket is updated in place.
+		for (int i = bucket; i < bucket + BUCKET_SIZE*ENTRY_SIZE; i += ENTRY_SIZE)
 		{
-			collisions++;
+			if (entries[i + 1] != MISS && entries[i] == key)
+			{
+				return i;
+			}
 		}
 		
-		for (int i = 0; i < record.length; i++)
+		int half = bucket + (BUCKET_SIZE/2)*ENTRY_SIZE;
+		int end = bucket + BUCKET_SIZE*ENTRY_SIZE;
+		int index;
+		switch (policy)
 		{
-			hashTable[key+i] = record[i];
+			case ALWAYS_REPLACE:
+				index = victim(bucket, end);
+				break;
+			case TWO_TIER:
+				index = victim(bucket, half);
+				if (isLive(index) && depthOf(entries[index + 1]) > depth)
+				{
+					index = victim(half, end);
+				}
+				else if (entries[index + 1] != MISS)
+				{
+					// Move the entry being pushed out of the deep half into
+					// the new half.
+					int moved = victim(half, end);
+					if (entries[moved + 1] != MISS)
+					{
+						collisions++;
+					}
+					entries[moved] = entries[index];
+					entries[moved + 1] = entries[index + 1];
+					entries[index + 1] = MISS;
+				}
+				break;
+			default:
+				index = victim(bucket, end);
+				if (isLive(index) && depthOf(entries[index + 1]) > depth)
+				{
+					return -1;
+				}
 		}
 		
-		return true;
+		if (entries[index + 1] != MISS)
+		{
+			collisions++;
+		}
+		return index;
 	}
 	
 	/**
-	 * Get an entry from the transposition table, based on hashed key.
+	 * Choose the entry to give up among some entries of a bucket: an empty
+	 * entry if there is one, otherwise the shallowest entry from an earlier
+	 * generation, otherwise the shallowest entry.
+	 * 
+	 * @param first		The index of the first entry.
+	 * @param end		The index just past the last entry.
+	 * @return			The index of the chosen entry.
+	 */
+	private int victim(int first, int end)
+	{
+		int best = first;
+		int bestRank = Integer.MAX_VALUE;
+		for (int i = first; i < end; i += ENTRY_SIZE)
+		{
+			long data = entries[i + 1];
+			if (data == MISS)
+			{
+				return i;
+			}
+			
+			int rank = depthOf(data);
+			if (ageOf(data) != (generation & AGE_MASK))
+			{
+				rank -= 1 << 16;
+			}
+			if (rank < bestRank)
+			{
+				bestRank = rank;
+				best = i;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Determine if an entry holds a result from the current generation.
+	 * 
+	 * @param index		The index of the entry.
+	 * @return			{@code true} if the entry is in use and current,
+	 * 					{@code false} otherwise.
+	 */
+	private boolean isLive(int index)
+	{
+		long data = entries[index + 1];
+		return data != MISS && ageOf(data) == (generation & AGE_MASK);
+	}
+	
+	/**
+	 * Get the position in the hash table of the bucket a key belongs in.
+	 * 
+	 * @param key		The key.
+	 * @return			The index of the first entry of the bucket.
+	 */
+	private int bucketOf(long key)
+	{
+		return BUCKET_SIZE*ENTRY_SIZE*(int)((key & Long.MAX_VALUE) % buckets);
+	}
+	
+	/**
+	 * Pack an entry into a data word.
+	 * 
+	 * @param depth			The depth, 0 to {@code MAX_DEPTH}.
+	 * @param flag			The bound.
+	 * @param score			The score.
+	 * @param move			The move.
+	 * @param generation	The generation to stamp the entry with.
+	 * @return				The data word.
+	 */
+	static long pack(int depth, int flag, int score, int move, int generation)
+	{
+		return (score & 0xffffffffL) |
+				((move & MOVE_MASK) << MOVE_SHIFT) |
+				((long)(flag + 1) << FLAG_SHIFT) |
+				((long)(depth + 1) << DEPTH_SHIFT) |
+				((long)(generation & AGE_MASK) << AGE_SHIFT);
+	}
+	
+	/**
+	 * Get the depth of a data word.
+	 * 
+	 * @param data		The data word, not {@code MISS}.
+	 * @return			The depth.
+	 */
+	public static int depthOf(long data)
+	{
+		return (int)((data >>> DEPTH_SHIFT) & DEPTH_MASK) - 1;
+	}
+	
+	/**
+	 * Get the bound of a data word.
+	 * 
+	 * @param data		The data word, not {@code MISS}.
+	 * @return			{@code LOWER_BOUND}, {@code EXACT_SCORE} or
+	 * 					{@code UPPER_BOUND}.
+	 */
+	public static int flagOf(long data)
+	{
+		return (int)((data >>> FLAG_SHIFT) & FLAG_MASK) - 1;
+	}
+	
+	/**
+	 * Get the score of a data word.
+	 * 
+	 * @param data		The data word, not {@code MISS}.
+	 * @return			The score.
+	 */
+	public static int scoreOf(long data)
+	{
+		return (int)data;
+	}
+	
+	/**
+	 * Get the move of a data word.
+	 * 
+	 * @param data		The data word, not {@code MISS}.
+	 * @return			The {@code MoveManager} encoded move.
+	 */
+	public static int moveOf(long data)
+	{
+		return (int)((data >>> MOVE_SHIFT) & MOVE_MASK);
+	}
+	
+	/**
+	 * Get the generation of a data word.
+	 * 
+	 * @param data		The data word, not {@code MISS}.
+	 * @return			The low six bits of the generation.
+	 */
+	static int ageOf(long data)
+	{
+		return (int)(data >>> AGE_SHIFT) & AGE_MASK;
+	}
+	
+	/**
+	 * Restamp a data word with a generation.
+	 * 
+	 * @param data			The data word, not {@code MISS}.
+	 * @param generation	The generation.
+	 * @return				The data word.
+	 */
+	static long withAge(long data, int generation)
+	{
+		return (data & ~((long)AGE_MASK << AGE_SHIFT)) | ((long)(generation & AGE_MASK) << AGE_SHIFT);
+	}
+	
+	/**
+	 * Look a key up in the table.
 	 * 
 	 * @param key		The key of the entry to retrieve.
-	 * @return			The record of values stored.
+	 * @return			The data word stored for the key, or {@code MISS}.
 	 */
-	public int[] get(int key)
+	public long probe(long key)
 	{
-		key %= size;
-		key *= 5;
-		
-		int[] record = new int[5];
+		int bucket = bucketOf(key);
+		probes++;
 		
-		for (int i = 0; i < record.length; i++)
+		for (int index = bucket; index < bucket + BUCKET_SIZE*ENTRY_SIZE; index += ENTRY_SIZE)
+		{
+			long data = entries[index + 1];
+			if (data != MISS && entries[index] == key)
+			{
+				// The entry is still in use.
+				hits++;
+				data = withAge(data, generation);
+				entries[index + 1] = data;
+				return data;
+			}
+		}
+		return MISS;
+	}
+	
+	/**
+	 * Look a key up in the table, filling a record owned by the caller.
+	 * 
+	 * @param key		The key of the entry to retrieve.
+	 * @param record	The record to fill, of {@code RECORD_SIZE} ints.  Its
+	 * 					{@code POS_INFO} is left alone.
+	 * @return			{@code true} if the key was found, {@code false} if
+	 * 					not, in which case the record's {@code DEPTH} is set
+	 * 					to -1.
+	 */
+	public boolean probe(long key, int[] record)
+	{
+		long data = probe(key);
+		if (data == MISS)
 		{
-			record[i] = hashTable[key+i];
+			record[DEPTH] = -1;
+			return false;
 		}
 		
+		record[DEPTH] = depthOf(data);
+		record[FLAG] = flagOf(data);
+		record[SCORE] = scoreOf(data);
+		record[MOVE] = moveOf(data);
+		return true;
+	}
+	
+	/**
+	 * Get an entry from the transposition table, based on hashed key.
+	 * 
+	 * @param key		The key of the entry to retrieve.
+	 * @return			A new record of the values stored, with a
+	 * 					{@code DEPTH} of -1 if nothing is stored for the key.
+	 */
+	public int[] get(long key)
+	{
+		int[] record = new int[RECORD_SIZE];
+		probe(key, record);
 		return record;
 	}
 	
 	/**
-	 * Get an entry from the transposition table, based on board to be hashed.
+	 * Get an entry from the transposition table, based on board to be hashed
+	 * with white to move.
 	 * 
 	 * @param board		The board that determines the hash key.
 	 * @return			The record of values stored.
 	 */
 	public int[] get(Board board)
 	{
-		int key = computeBoardHash(board) % size;
-		
-		return get(key);
+		return get(computeBoardHash(board));
 	}
 	
 	/**
-	 * Get the number of entries of the transposition table.
+	 * Get the number of entries of the transposition table, counting whole
+	 * buckets.
 	 * 
 	 * @return			The size of the hash table in terms
 	 * 					of the number of records it can store.
 	 */
 	public int size()
 	{
-		return this.hashTable.length / 5;
+		return this.entries.length / ENTRY_SIZE;
+	}
+	
+	/**
+	 * Describe how the table has been used.
+	 * 
+	 * @return			The hits, probes and collisions.
+	 */
+	public String toString()
+	{
+		return hits + " hits of " + probes + ", " + collisions + " collisions";
 	}
 }
@@ -7,12 +7,19 @@ import java.util.Iterator;
 import net.n3.nanoxml.IXMLElement;
 
 import snozama.amazons.global.GlobalFunctions;
+import snozama.amazons.mechanics.BitBoard;
 import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Endgame;
+import snozama.amazons.mechanics.Evaluator;
 import snozama.amazons.mechanics.MoveManager;
-import snozama.amazons.mechanics.SnozamaHeuristic;
+import snozama.amazons.mechanics.RegionSolver;
+import snozama.amazons.mechanics.RegionSum;
+import snozama.amazons.mechanics.SnozamaEvaluator;
 import snozama.amazons.mechanics.algo.DummySearch;
+import snozama.amazons.mechanics.algo.MoveStack;
 import snozama.amazons.mechanics.algo.NegaScout;
 import snozama.amazons.mechanics.algo.TranspositionNegaScout;
+import snozama.amazons.mechanics.transtable.EvaluationCache;
 import snozama.amazons.settings.Settings;
 import snozama.ui.api.AUI;
 import snozama.ui.exception.AUIException;
@@ -49,6 +56,13 @@ public class SnozamaPlayer implements GamePlayer
 	private Board board;
 	private int turn = 0;
 	
+	private RegionSolver solver = new RegionSolver();
+	private Evaluator evaluator = new SnozamaEvaluator(solver);
+	private EvaluationCache evalCache = new EvaluationCache(EvaluationCache.DEFAULT_SIZE);
+	private MoveStack moveStack = new MoveStack(20);
+	private Endgame endgame = new Endgame();
+	private RegionSum regionSum = new RegionSum(solver);
+	
 	private static String teamName = "SnozamaCody";
 	private String password = "alexcodygraeme";
 	
@@ -163,7 +177,7 @@ public class SnozamaPlayer implements GamePlayer
 		
 		if (userCount > 2)
 		{
-			board = new Board();
+			board = new BitBoard();
 			this.role = "S";
 			AUI.getUI();
 		}
@@ -203,7 +217,7 @@ public class SnozamaPlayer implements GamePlayer
 				this.role = "S";
 			}
 			
-			board = new Board();
+			board = new BitBoard();
 			AUI.setColors();
 			//AUI.getUI();
 		}
@@ -417,7 +431,9 @@ public class SnozamaPlayer implements GamePlayer
 	
 	/**
 	 * Completes the process of making Snozama's move. This process includes
-	 * searching the game tree for a move, decoding the move into its component
+	 * searching the game tree for a move (or solving the regions once the
+	 * board has split into small ones, or filling our own regions once the
+	 * players are separated), decoding the move into its component
 	 * parts, making the move on the program's internal board, moving the
 	 * piece on the program's user interface and sending the move to the server.
 	 * 
@@ -427,16 +443,31 @@ public class SnozamaPlayer implements GamePlayer
 	{
 		AUI.startTurn(Settings.teamColour, Settings.turnTime);
 		long endTime = System.currentTimeMillis()+Settings.decisionTime; //starts turn timer
-		NegaScout search = new NegaScout(endTime);
-		//TranspositionNegaScout search = new TranspositionNegaScout(endTime, 2000000, board);
-		//DummySearch search = new DummySearch(endTime);
-		int encodedMove = search.chooseMove(board, Settings.teamColour, turn);
+		int encodedMove = regionSum.chooseMove(board, Settings.teamColour);
+		if (encodedMove != -1)
+		{
+			// Every region is small enough to solve: play in the hottest.
+			System.out.println("Regions solved, playing in the hottest (gain " + regionSum.getGain() + ")");
+		}
+		else if (endgame.isSeparated(board))
+		{
+			// Nothing left to fight over: just fill our own regions.
+			System.out.println("Separated endgame, filling");
+			encodedMove = endgame.fill(board, Settings.teamColour);
+		}
+		else
+		{
+			NegaScout search = new NegaScout(endTime, evaluator, evalCache, moveStack);
+			//TranspositionNegaScout search = new TranspositionNegaScout(endTime, 2000000, board, evaluator);
+			//DummySearch search = new DummySearch(endTime);
+			encodedMove = search.chooseMove(board, Settings.teamColour, turn);
+		}
 		
 		//Handle end of game situations
 		if (encodedMove == -1)
 		{
 			//No more moves available
-			int score = SnozamaHeuristic.evaluateBoard(board, Settings.teamColour, turn);
+			int score = evaluator.evaluate(board, Settings.teamColour, turn);
 			if (score > 0)
 			{
 				MoveManager successors = board.getSuccessors(Settings.teamColour);
@@ -503,7 +534,7 @@ public class SnozamaPlayer implements GamePlayer
 			int row_s = Board.decodeAmazonRow(board.amazons[Settings.teamColour][successors.getAmazonIndex(index)]);
 			int col_s = Board.decodeAmazonColumn(board.amazons[Settings.teamColour][successors.getAmazonIndex(index)]);
 			successors.applyMove(board, index);
-			scores[index] = SnozamaHeuristic.evaluateBoard(board, Settings.teamColour, turn);
+			scores[index] = evaluator.evaluate(board, Settings.teamColour, turn);
 			successors.undoMove(board, index, row_s, col_s);
 		}
 		successors.sort(scores);
@@ -10,6 +10,7 @@ import snozama.amazons.mechanics.algo.NegaScout;
 import snozama.amazons.mechanics.algo.RandomNegaScout;
 import snozama.amazons.mechanics.algo.SelectiveNegaScout;
 import snozama.amazons.mechanics.algo.TranspositionNegaScout;
+import snozama.amazons.mechanics.transtable.DirectTTable;
 import snozama.amazons.mechanics.transtable.ZobristTTable;
 import snozama.amazons.settings.Settings;
 import snozama.client.SnozamaPlayer;
@@ -55,6 +56,8 @@ public class DualSnozamaPlayerDemo
 		
 		//ZobristTTable persistentWZTable = new ZobristTTable(20000000);
 		//ZobristTTable persistentBZTable = new ZobristTTable(20000000);
+		//DirectTTable persistentWZTable = new DirectTTable(DirectTTable.availableMegabytes()/2);
+		//DirectTTable persistentBZTable = new DirectTTable(DirectTTable.availableMegabytes()/2);
 		
 		// Play the game.
 		int turn = 1;
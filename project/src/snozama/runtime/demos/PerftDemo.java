@@ -0,0 +1,43 @@
+package snozama.runtime.demos;
+
+import snozama.amazons.mechanics.BitBoard;
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Perft;
+
+/**
+ * Runs perft on every reference position with each board representation,
+ * checking the counts against the stored ones and reporting nodes per
+ * second.
+ * 
+ * Usage: PerftDemo [maximum depth] [threads]
+ */
+public class PerftDemo
+{
+	public static void main(String args[])
+	{
+		int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		
+		for (int position = 0; position < Perft.REFERENCE_NAMES.length; position++)
+		{
+			long[] counts = Perft.REFERENCE_COUNTS[position];
+			for (int depth = 1; depth <= Math.min(maxDepth, counts.length); depth++)
+			{
+				Board[] boards = {new Board(), new BitBoard()};
+				for (Board board : boards)
+				{
+					int colour = Perft.setUp(board, position);
+					
+					long start = System.nanoTime();
+					long nodes = Perft.perft(board, colour, depth, threads);
+					long elapsed = Math.max(System.nanoTime() - start, 1);
+					
+					System.out.println(Perft.REFERENCE_NAMES[position] + " depth " + depth
+							+ " " + board.getClass().getSimpleName() + ": " + nodes + " nodes in "
+							+ (elapsed/1000000) + " ms (" + (nodes*1000000000L/elapsed) + " nps)"
+							+ (nodes == counts[depth-1] ? "" : " MISMATCH, expected " + counts[depth-1]));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.BitBoard;
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.BitBoard.java
+ */
+public class BitBoardTest {
+	
+	/**
+	 * Test that board setup correctly.
+	 */
+	@Test
+	public void testCreateNewBoard()
+	{
+		BitBoard board = new BitBoard();
+		
+		assertTrue(board.isWhite(6, 0));
+		assertTrue(board.isWhite(9, 3));
+		assertTrue(board.isWhite(9, 6));
+		assertTrue(board.isWhite(6, 9));
+		
+		assertTrue(board.isBlack(3, 0));
+		assertTrue(board.isBlack(0, 3));
+		assertTrue(board.isBlack(0, 6));
+		assertTrue(board.isBlack(3, 9));
+		
+		assertTrue(board.equals(new Board()));
+		assertTrue(new BitBoard(new Board()).equals(board));
+	}
+	
+	/**
+	 * Make sure we get the right number of boards for first move.
+	 */
+	@Test
+	public void testSuccessorsFirstBoard()
+	{
+		BitBoard board = new BitBoard();
+		
+		MoveManager successors = board.getSuccessors(Board.BLACK);
+		
+		assertEquals(successors.size(), 2176);
+	}
+	
+	/**
+	 * Test isTerminal, following the same game as BoardTest.
+	 */
+	@Test
+	public void testIsTerminal()
+	{
+		BitBoard board = new BitBoard();
+		
+		assertFalse(board.isTerminal());
+		
+		assertTrue(board.move(6, 0, 9, 0, 8, 0, Board.WHITE));
+		assertTrue(board.move(9, 3, 9, 1, 8, 1, Board.WHITE));
+		assertTrue(board.move(9, 6, 9, 2, 8, 2, Board.WHITE));
+		assertTrue(board.move(0, 3, 8, 3, 9, 3, Board.BLACK));
+		assertTrue(board.move(6, 9, 9, 9, 8, 8, Board.WHITE));
+		assertTrue(board.move(3, 0, 0, 0, 1, 1, Board.BLACK));
+		assertTrue(board.move(0, 6, 0, 9, 1, 8, Board.BLACK));
+		
+		assertFalse(board.isTerminal());
+		
+		//white will have no more moves after this
+		assertTrue(board.move(3, 9, 8, 9, 9, 8, Board.BLACK));
+		
+		assertTrue(board.isTerminal());
+	}
+	
+	/**
+	 * Play random games on both representations and make sure they agree on
+	 * every query, including after moves are undone.  The bit board finds
+	 * moves with table lookups rather than by walking rays, so the moves
+	 * are compared regardless of the order they are generated in.
+	 */
+	@Test
+	public void testMatchesBoard()
+	{
+		Random random = new Random(322);
+		
+		for (int game = 0; game < 10; game++)
+		{
+			Board board = new Board();
+			BitBoard bitBoard = new BitBoard();
+			int colour = Board.WHITE;
+			
+			while (!board.isTerminal())
+			{
+				assertFalse(bitBoard.isTerminal());
+				
+				MoveManager expected = board.getSuccessors(colour);
+				MoveManager actual = bitBoard.getSuccessors(colour);
+				
+				assertArrayEquals(sortedMoves(expected), sortedMoves(actual));
+				assertSameReach(board, bitBoard);
+				assertValidMoves(board, bitBoard, sortedMoves(expected), colour, random);
+				
+				// Apply and undo a few moves, making sure nothing is left behind.
+				for (int i = 0; i < 5; i++)
+				{
+					int index = random.nextInt(actual.size());
+					int position = bitBoard.amazons[colour][actual.getAmazonIndex(index)];
+					int row_s = Board.decodeAmazonRow((byte)position);
+					int col_s = Board.decodeAmazonColumn((byte)position);
+					
+					assertTrue(actual.applyMove(bitBoard, index));
+					assertTrue(actual.undoMove(bitBoard, index, row_s, col_s));
+				}
+				assertSameSquares(board, bitBoard);
+				
+				int index = random.nextInt(expected.size());
+				assertTrue(expected.applyMove(board, index));
+				assertTrue(MoveManager.applyUnmanagedMove(bitBoard, expected.getMove(index)));
+				assertSameSquares(board, bitBoard);
+				
+				colour = 1 - colour;
+			}
+			
+			assertTrue(bitBoard.isTerminal());
+		}
+	}
+	
+	/**
+	 * Get the moves of a move manager in ascending order.
+	 * 
+	 * @param moves		The move manager.
+	 * @return			The sorted moves.
+	 */
+	private int[] sortedMoves(MoveManager moves)
+	{
+		int[] sorted = new int[moves.size()];
+		for (int i = 0; i < sorted.length; i++)
+		{
+			sorted[i] = moves.getMove(i);
+		}
+		Arrays.sort(sorted);
+		return sorted;
+	}
+	
+	/**
+	 * Check that two boards agree on the squares a queen can reach from
+	 * every square, both as is and with each amazon lifted off the board.
+	 * 
+	 * @param expected	The board to compare against.
+	 * @param actual	The board being checked.
+	 */
+	private void assertSameReach(Board expected, Board actual)
+	{
+		int[] expectedReach = new int[QueenRays.MAX_REACH];
+		int[] actualReach = new int[QueenRays.MAX_REACH];
+		
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			for (int colour = 0; colour < 2; colour++)
+			{
+				for (int i = 0; i < expected.amazons[colour].length; i++)
+				{
+					int from = expected.amazons[colour][i];
+					int count = expected.getQueenReach(square, from, expectedReach);
+					
+					assertEquals(count, actual.getQueenReach(square, from, actualReach));
+					assertEquals(count, expected.countQueenReach(square, from));
+					assertEquals(count, actual.countQueenReach(square, from));
+					
+					Arrays.sort(expectedReach, 0, count);
+					Arrays.sort(actualReach, 0, count);
+					for (int k = 0; k < count; k++)
+					{
+						assertEquals(expectedReach[k], actualReach[k]);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Check that both boards accept exactly the generated moves, for every
+	 * generated move and a sample of arbitrary ones, without changing the
+	 * board.
+	 * 
+	 * @param board		The board the moves were generated for.
+	 * @param bitBoard	The same position as a bit board.
+	 * @param moves		The generated moves, in ascending order.
+	 * @param colour	The colour of the player to move.
+	 * @param random	Source of arbitrary moves.
+	 */
+	private void assertValidMoves(Board board, BitBoard bitBoard, int[] moves, int colour, Random random)
+	{
+		Board before = new Board(board);
+		
+		for (int i = 0; i < moves.length; i++)
+		{
+			assertTrue(board.isValidMove(moves[i]));
+			assertTrue(bitBoard.isValidMove(moves[i]));
+		}
+		
+		for (int i = 0; i < 2000; i++)
+		{
+			int move = MoveManager.encodeMove(colour, random.nextInt(4),
+					random.nextInt(QueenRays.SQUARES), random.nextInt(QueenRays.SQUARES));
+			boolean expected = Arrays.binarySearch(moves, move) > -1;
+			
+			assertEquals(expected, board.isValidMove(move));
+			assertEquals(expected, bitBoard.isValidMove(move));
+		}
+		
+		assertFalse(board.isValidMove(0));
+		assertFalse(bitBoard.isValidMove(-1));
+		assertTrue(before.equals(board));
+		assertTrue(before.equals(bitBoard));
+	}
+	
+	/**
+	 * Check that two boards agree on the contents of every square.
+	 * 
+	 * @param expected	The board to compare against.
+	 * @param actual	The board being checked.
+	 */
+	private void assertSameSquares(Board expected, Board actual)
+	{
+		assertTrue(expected.equals(actual));
+		for (int row = 0; row < Board.SIZE; row++)
+		{
+			for (int col = 0; col < Board.SIZE; col++)
+			{
+				assertEquals(expected.isOccupied(row, col), actual.isOccupied(row, col));
+				assertEquals(expected.isWhite(row, col), actual.isWhite(row, col));
+				assertEquals(expected.isBlack(row, col), actual.isBlack(row, col));
+			}
+		}
+	}
+}
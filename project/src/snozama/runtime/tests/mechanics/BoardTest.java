@@ -2,10 +2,13 @@ package snozama.runtime.tests.mechanics;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import snozama.amazons.mechanics.Board;
 import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
 
 /**
  * Unit tests for snozama.amazons.mechanics.Board.java
@@ -193,4 +196,144 @@ public class BoardTest {
 			i++;
 		}
 	}
+	
+	/**
+	 * Make sure square contents follow moves, arrows and undone moves.
+	 */
+	@Test
+	public void testSquareContents()
+	{
+		Board board = new Board();
+		
+		assertTrue(board.isWhite(6, 0));
+		assertFalse(board.isBlack(6, 0));
+		assertFalse(board.isArrow(6, 0));
+		assertTrue(board.isBlack(0, 3));
+		assertFalse(board.isArrow(5, 5));
+		
+		assertTrue(board.move(6, 0, 5, 0, 5, 5, Board.WHITE));
+		assertFalse(board.isWhite(6, 0));
+		assertFalse(board.isOccupied(6, 0));
+		assertTrue(board.isWhite(5, 0));
+		assertTrue(board.isArrow(5, 5));
+		assertFalse(board.isWhite(5, 5));
+		
+		MoveManager moves = board.getSuccessors(Board.BLACK);
+		int move = moves.getMove(0);
+		byte position = board.amazons[Board.BLACK][moves.getAmazonIndex(0)];
+		int row_s = Board.decodeAmazonRow(position);
+		int col_s = Board.decodeAmazonColumn(position);
+		
+		assertTrue(board.isValidMove(move));
+		assertTrue(board.isBlack(row_s, col_s));
+		
+		assertTrue(moves.applyMove(board, 0));
+		assertTrue(board.isBlack(moves.getFinishRow(0), moves.getFinishColumn(0)));
+		assertTrue(board.isArrow(moves.getArrowRow(0), moves.getArrowColumn(0)));
+		
+		assertTrue(moves.undoMove(board, 0, row_s, col_s));
+		assertTrue(board.isBlack(row_s, col_s));
+		assertFalse(board.isOccupied(moves.getFinishRow(0), moves.getFinishColumn(0)));
+		
+		assertTrue(board.removeArrow(5, 5));
+		assertFalse(board.removeArrow(5, 0));
+		assertTrue(board.isWhite(5, 0));
+	}
+	
+	/**
+	 * Refilling an existing set of moves must give the same moves as a
+	 * freshly generated one.
+	 */
+	@Test
+	public void testSuccessorsReuse()
+	{
+		Board board = new Board();
+		MoveManager reused = new MoveManager();
+		
+		assertTrue(board.getSuccessors(Board.WHITE, reused) == reused);
+		assertEquals(2176, reused.size());
+		
+		assertTrue(board.move(6, 0, 5, 0, 5, 5, Board.WHITE));
+		
+		MoveManager expected = board.getSuccessors(Board.BLACK);
+		board.getSuccessors(Board.BLACK, reused);
+		
+		assertEquals(expected.size(), reused.size());
+		assertTrue(reused.hasIterations());
+		for (int i = 0; i < expected.size(); i++)
+		{
+			assertEquals(expected.getMove(i), reused.getMove(i));
+		}
+	}
+	
+	/**
+	 * The liberty counts kept by the board must match a count made from
+	 * scratch through random games, including after moves are undone.
+	 */
+	@Test
+	public void testLiberties()
+	{
+		Random random = new Random(322);
+		
+		for (int game = 0; game < 5; game++)
+		{
+			Board board = new Board();
+			int colour = Board.WHITE;
+			assertLiberties(board);
+			
+			while (!board.isTerminal())
+			{
+				MoveManager moves = board.getSuccessors(colour);
+				int index = random.nextInt(moves.size());
+				byte position = board.amazons[colour][moves.getAmazonIndex(index)];
+				int row_s = Board.decodeAmazonRow(position);
+				int col_s = Board.decodeAmazonColumn(position);
+				
+				assertTrue(moves.applyMove(board, index));
+				assertLiberties(board);
+				assertTrue(moves.undoMove(board, index, row_s, col_s));
+				assertLiberties(board);
+				
+				assertTrue(moves.applyMove(board, index));
+				colour = 1 - colour;
+			}
+			
+			assertLiberties(new Board(board));
+			assertTrue(!board.canMove(Board.WHITE) || !board.canMove(Board.BLACK));
+		}
+	}
+	
+	/**
+	 * Check the liberty counts of a board against its squares, and that
+	 * trapped amazons are exactly those without an empty neighbour.
+	 * 
+	 * @param board		The board to check.
+	 */
+	private void assertLiberties(Board board)
+	{
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			int expected = 0;
+			for (int neighbour : QueenRays.NEIGHBOURS[square])
+			{
+				if (!board.isOccupied(neighbour))
+				{
+					expected++;
+				}
+			}
+			assertEquals(expected, board.getLiberties(square));
+		}
+		
+		for (int colour = 0; colour < 2; colour++)
+		{
+			boolean canMove = false;
+			for (int i = 0; i < board.amazons[colour].length; i++)
+			{
+				byte amazon = board.amazons[colour][i];
+				assertEquals(board.getLiberties(amazon) == 0, board.isTrapped(amazon));
+				canMove |= !board.isTrapped(amazon);
+			}
+			assertEquals(canMove, board.canMove(colour));
+		}
+	}
 }
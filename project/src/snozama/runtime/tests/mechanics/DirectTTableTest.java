@@ -0,0 +1,144 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.transtable.DirectTTable;
+import snozama.amazons.mechanics.transtable.ZobristTTable;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.transtable.DirectTTable.java
+ */
+public class DirectTTableTest {
+	
+	/**
+	 * Make a key falling in the first bucket of a table.
+	 * 
+	 * @param table		The table.
+	 * @param i			The number of the key.
+	 * @return			The key.
+	 */
+	private long key(DirectTTable table, int i)
+	{
+		return (long)i*(table.size()/ZobristTTable.BUCKET_SIZE);
+	}
+	
+	@Test
+	public void testNew() {
+		DirectTTable table = new DirectTTable(1);
+		assertEquals(1, table.megabytes);
+		assertEquals((1 << 20)/16, table.size());
+		assertTrue(DirectTTable.availableMegabytes() >= 1);
+		assertEquals(64, DirectTTable.availableMegabytes(64L << 20));
+		assertEquals(1, DirectTTable.availableMegabytes(0));
+	}
+	
+	@Test
+	public void testPutProbe() {
+		DirectTTable table = new DirectTTable(1);
+		long key = 0x123456789abcdefL;
+		int[] record = new int[ZobristTTable.RECORD_SIZE];
+		
+		assertFalse(table.probe(key, record));
+		assertEquals(-1, record[ZobristTTable.DEPTH]);
+		assertTrue(table.put(key, 7, ZobristTTable.LOWER_BOUND, -10, 27209));
+		assertTrue(table.probe(key, record));
+		assertEquals(7, record[ZobristTTable.DEPTH]);
+		assertEquals(ZobristTTable.LOWER_BOUND, record[ZobristTTable.FLAG]);
+		assertEquals(-10, record[ZobristTTable.SCORE]);
+		assertEquals(27209, record[ZobristTTable.MOVE]);
+		assertEquals(1, table.hits);
+		assertEquals(2, table.probes);
+	}
+	
+	/**
+	 * Deeper entries are kept until a new generation, unless used again.
+	 */
+	@Test
+	public void testReplacement() {
+		DirectTTable table = new DirectTTable(1);
+		for (int i = 1; i <= ZobristTTable.BUCKET_SIZE; i++)
+		{
+			assertTrue(table.put(key(table, i), 4 + i, ZobristTTable.EXACT_SCORE, i, 233));
+		}
+		assertFalse(table.put(key(table, 5), 3, ZobristTTable.EXACT_SCORE, 5, 233));
+		assertEquals(ZobristTTable.MISS, table.probe(key(table, 5)));
+		assertEquals(0, table.collisions);
+		
+		table.nextGeneration();
+		table.probe(key(table, 1));
+		assertTrue(table.put(key(table, 6), 0, ZobristTTable.EXACT_SCORE, 6, 233));
+		assertEquals(1, table.collisions);
+		assertEquals(ZobristTTable.MISS, table.probe(key(table, 2)));
+		assertEquals(1, ZobristTTable.scoreOf(table.probe(key(table, 1))));
+		assertEquals(6, ZobristTTable.scoreOf(table.probe(key(table, 6))));
+	}
+	
+	/**
+	 * The table must behave exactly as a depth-preferred
+	 * {@link ZobristTTable} of the same size.
+	 */
+	@Test
+	public void testMatchesHeapTable() {
+		DirectTTable direct = new DirectTTable(1);
+		ZobristTTable heap = new ZobristTTable(direct.size(), ZobristTTable.DEPTH_PREFERRED);
+		Random random = new Random(322);
+		
+		// Enough keys to fill most buckets several times over.
+		long[] keys = new long[4*direct.size()];
+		for (int i = 0; i < keys.length; i++)
+		{
+			keys[i] = random.nextLong();
+		}
+		
+		for (int i = 0; i < 1000000; i++)
+		{
+			long key = keys[random.nextInt(keys.length)];
+			if (random.nextBoolean())
+			{
+				int depth = random.nextInt(ZobristTTable.MAX_DEPTH + 1);
+				int score = random.nextInt();
+				assertEquals(heap.put(key, depth, ZobristTTable.EXACT_SCORE, score, 233),
+						direct.put(key, depth, ZobristTTable.EXACT_SCORE, score, 233));
+			}
+			else
+			{
+				assertEquals(heap.probe(key), direct.probe(key));
+			}
+			if (i % 100000 == 0)
+			{
+				heap.nextGeneration();
+				direct.nextGeneration();
+			}
+		}
+		assertEquals(heap.collisions, direct.collisions);
+		assertEquals(heap.hits, direct.hits);
+	}
+	
+	@Test
+	public void testMapped() throws IOException {
+		File file = File.createTempFile("ttable", ".bin");
+		try
+		{
+			DirectTTable table = new DirectTTable(2, file);
+			assertEquals(2L << 20, file.length());
+			assertEquals((2 << 20)/16, table.size());
+			
+			long key = 0x7edcba9876543210L;
+			assertTrue(table.put(key, 3, ZobristTTable.UPPER_BOUND, 42, 233));
+			int[] record = new int[ZobristTTable.RECORD_SIZE];
+			assertTrue(table.probe(key, record));
+			assertEquals(42, record[ZobristTTable.SCORE]);
+			assertEquals(ZobristTTable.UPPER_BOUND, record[ZobristTTable.FLAG]);
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
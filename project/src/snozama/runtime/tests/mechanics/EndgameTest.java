@@ -0,0 +1,83 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.BitBoard;
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Endgame;
+import snozama.amazons.mechanics.MoveManager;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.Endgame.java
+ */
+public class EndgameTest {
+	
+	/**
+	 * Build a board with a wall of arrows across row 4, leaving white the
+	 * bottom five rows and black the top four.
+	 * 
+	 * @param board		The opening board to build on.
+	 * @return			The board.
+	 */
+	private Board walled(Board board)
+	{
+		for (int col = 0; col < Board.SIZE; col++)
+		{
+			assertTrue(board.placeArrow(5, col, 4, col));
+		}
+		return board;
+	}
+	
+	/**
+	 * The opening is not separated; a wall between the players is.
+	 */
+	@Test
+	public void testSeparated()
+	{
+		Endgame endgame = new Endgame();
+		assertFalse(endgame.isSeparated(new Board()));
+		
+		Board[] boards = {walled(new Board()), walled(new BitBoard())};
+		for (Board board : boards)
+		{
+			assertTrue(endgame.isSeparated(board));
+			assertEquals(46, endgame.countUsable(board, Board.WHITE));
+			assertEquals(36, endgame.countUsable(board, Board.BLACK));
+			
+			// A gap in the wall joins the two sides again.
+			assertTrue(board.removeArrow(4, 5));
+			assertFalse(endgame.isSeparated(board));
+		}
+	}
+	
+	/**
+	 * The filling move must be legal, leave the board as it was found and
+	 * keep as many squares usable as any other move.
+	 */
+	@Test
+	public void testFill()
+	{
+		Endgame endgame = new Endgame();
+		Board board = walled(new BitBoard());
+		Board before = new Board(board);
+		
+		int move = endgame.fill(board, Board.WHITE);
+		assertTrue(before.equals(board));
+		assertTrue(board.isValidMove(move));
+		
+		MoveManager successors = board.getSuccessors(Board.WHITE);
+		int best = 0;
+		for (int i = 0; i < successors.size(); i++)
+		{
+			Board after = new Board(board);
+			assertTrue(MoveManager.applyUnmanagedMove(after, successors.getMove(i)));
+			best = Math.max(best, endgame.countUsable(after, Board.WHITE));
+		}
+		
+		assertTrue(MoveManager.applyUnmanagedMove(board, move));
+		assertEquals(best, endgame.countUsable(board, Board.WHITE));
+		assertEquals(45, best);
+	}
+}
@@ -0,0 +1,90 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Evaluator;
+import snozama.amazons.mechanics.SnozamaEvaluator;
+import snozama.amazons.mechanics.algo.NegaScout;
+import snozama.amazons.mechanics.transtable.EvaluationCache;
+import snozama.amazons.mechanics.transtable.ZobristTTable;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.transtable.EvaluationCache.java
+ */
+public class EvaluationCacheTest {
+	
+	/**
+	 * Evaluator counting its calls, scoring every position by the number of
+	 * calls so far.
+	 */
+	private static class CountingEvaluator implements Evaluator
+	{
+		int calls = 0;
+		
+		@Override
+		public int evaluate(Board board, int activePlayer, int turn)
+		{
+			return ++calls;
+		}
+		
+		@Override
+		public int estimate(Board board, int activePlayer, int turn)
+		{
+			return 0;
+		}
+	}
+	
+	/**
+	 * Evaluations are found again under the same key and side to move only,
+	 * and are replaced by evaluations landing in the same slot.
+	 */
+	@Test
+	public void testHitsAndMisses()
+	{
+		EvaluationCache cache = new EvaluationCache(1);
+		CountingEvaluator evaluator = new CountingEvaluator();
+		Board board = new Board();
+		long key = ZobristTTable.computeBoardHash(board);
+		
+		assertEquals(1, cache.evaluate(evaluator, key, board, Board.WHITE, 0));
+		assertEquals(1, cache.evaluate(evaluator, key, board, Board.WHITE, 0));
+		assertEquals(2, cache.evaluate(evaluator, key, board, Board.BLACK, 0));
+		assertEquals(1, cache.hits);
+		assertEquals(2, cache.misses);
+		
+		// A different key evicts the white evaluation.
+		assertEquals(3, cache.evaluate(evaluator, key + 1, board, Board.WHITE, 0));
+		assertEquals(4, cache.evaluate(evaluator, key, board, Board.WHITE, 0));
+		assertEquals(2, cache.evaluate(evaluator, key, board, Board.BLACK, 0));
+		
+		cache.clear();
+		assertEquals(0, cache.hits);
+		assertEquals(5, cache.evaluate(evaluator, key, board, Board.BLACK, 0));
+	}
+	
+	/**
+	 * Searching the same position again must find its leaves in the cache,
+	 * and score them the same.  A few leaves share a slot and evict each
+	 * other, so not quite every leaf is found.
+	 */
+	@Test
+	public void testSearchReuse()
+	{
+		Board board = new Board();
+		EvaluationCache cache = new EvaluationCache(EvaluationCache.DEFAULT_SIZE);
+		NegaScout search = new NegaScout(System.currentTimeMillis() + 60*1000, new SnozamaEvaluator(), cache);
+		
+		int first = search.NegaScoutSearch(board, 0, 1, NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.WHITE, 0);
+		assertEquals(0, cache.hits);
+		assertEquals(2176, cache.misses);
+		
+		int second = search.NegaScoutSearch(board, 0, 1, NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.WHITE, 0);
+		assertEquals(first, second);
+		assertEquals(2*2176, cache.hits + cache.misses);
+		assertTrue(cache.hits > 2000);
+		assertTrue(board.equals(new Board()));
+	}
+}
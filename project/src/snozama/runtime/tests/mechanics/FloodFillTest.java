@@ -0,0 +1,118 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.FloodFill;
+import snozama.amazons.mechanics.QueenRays;
+import snozama.amazons.mechanics.Regions;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.FloodFill.java
+ */
+public class FloodFillTest {
+	
+	/**
+	 * Each connectivity joins exactly the neighbours it names.
+	 */
+	@Test
+	public void testConnectivity()
+	{
+		long[] squares = set(QueenRays.square(4, 4), QueenRays.square(5, 5));
+		assertEquals(1, count(squares, Regions.FULL));
+		assertEquals(2, count(squares, Regions.LATERAL));
+		assertEquals(1, count(squares, Regions.DIAGONAL));
+		
+		squares = set(QueenRays.square(4, 4), QueenRays.square(4, 5));
+		assertEquals(1, count(squares, Regions.FULL));
+		assertEquals(1, count(squares, Regions.LATERAL));
+		assertEquals(2, count(squares, Regions.DIAGONAL));
+	}
+	
+	/**
+	 * Squares with consecutive indices on opposite edges are not neighbours,
+	 * and neighbours either side of the word boundary are.
+	 */
+	@Test
+	public void testEdges()
+	{
+		assertEquals(2, count(set(QueenRays.square(9, 0), QueenRays.square(0, 1)), Regions.FULL));
+		assertEquals(2, count(set(QueenRays.square(0, 0), QueenRays.square(9, 9)), Regions.FULL));
+		assertEquals(1, count(set(63, 64), Regions.LATERAL));
+		assertEquals(1, count(set(63, 74), Regions.DIAGONAL));
+	}
+	
+	/**
+	 * Filling grows to the whole component and no further, and components
+	 * are numbered in row by row order.
+	 */
+	@Test
+	public void testFillAndLabel()
+	{
+		// Column 5 blocked except for row 9, plus an isolated square.
+		long[] open = new long[2];
+		for (int row = 0; row < 10; row++)
+		{
+			for (int col = 0; col < 10; col++)
+			{
+				if (col != 5 || row == 9)
+				{
+					add(open, QueenRays.square(row, col));
+				}
+			}
+		}
+		
+		long[] region = set(QueenRays.square(0, 0));
+		FloodFill.fill(region, open, Regions.LATERAL);
+		assertEquals(91, FloodFill.size(region[0], region[1]));
+		
+		long[] walled = open.clone();
+		walled[QueenRays.square(9, 5) >>> 6] &= ~(1L << QueenRays.square(9, 5));
+		
+		long[] components = new long[2*QueenRays.SQUARES];
+		assertEquals(2, FloodFill.label(walled, Regions.LATERAL, components));
+		assertTrue((components[0] & (1L << QueenRays.square(0, 0))) != 0);
+		assertEquals(50, FloodFill.size(components[0], components[1]));
+		assertEquals(40, FloodFill.size(components[2], components[3]));
+	}
+	
+	/**
+	 * Count the components of a set of squares.
+	 * 
+	 * @param squares		The squares.
+	 * @param connectivity	The connectivity to use.
+	 * @return				The number of components.
+	 */
+	private int count(long[] squares, int connectivity)
+	{
+		return FloodFill.label(squares, connectivity, new long[2*QueenRays.SQUARES]);
+	}
+	
+	/**
+	 * Make a set of squares.
+	 * 
+	 * @param squares	The square indices.
+	 * @return			The set.
+	 */
+	private long[] set(int... squares)
+	{
+		long[] set = new long[2];
+		for (int square : squares)
+		{
+			add(set, square);
+		}
+		return set;
+	}
+	
+	/**
+	 * Add a square to a set.
+	 * 
+	 * @param set		The set.
+	 * @param square	The square index.
+	 */
+	private void add(long[] set, int square)
+	{
+		set[square >>> 6] |= 1L << square;
+	}
+}
@@ -2,10 +2,20 @@ package snozama.runtime.tests.mechanics;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
+import snozama.amazons.mechanics.BitBoard;
 import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Evaluator;
+import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenReach;
+import snozama.amazons.mechanics.RegionSolver;
+import snozama.amazons.mechanics.SnozamaEvaluator;
 import snozama.amazons.mechanics.SnozamaHeuristic;
+import snozama.amazons.mechanics.Territory;
+import snozama.amazons.mechanics.algo.NegaScout;
 
 /**
  * Unit tests for snozama.amazons.mechanics.SnozamaHeuristic.java
@@ -25,6 +35,46 @@ public class HeuristicTest {
 		assertTrue(SnozamaHeuristic.minMobility(board, Board.WHITE) == 0);
 	}
 	
+	/**
+	 * Counting moves from line occupancies must agree with generating them,
+	 * on both board representations.
+	 */
+	@Test
+	public void testMinMobilityCounts()
+	{
+		Random random = new Random(322);
+		for (int game = 0; game < 5; game++)
+		{
+			Board board = new Board();
+			int colour = Board.WHITE;
+			while (!board.isTerminal())
+			{
+				int[] fewest = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+				for (int c = 0; c < 2; c++)
+				{
+					int[] moves = new int[4];
+					MoveManager successors = board.getSuccessors(c);
+					for (int i = 0; i < successors.size(); i++)
+					{
+						moves[successors.getAmazonIndex(i)]++;
+					}
+					for (int i = 0; i < 4; i++)
+					{
+						fewest[c] = Math.min(fewest[c], moves[i]);
+					}
+				}
+				
+				int expected = fewest[colour] - fewest[1 - colour];
+				assertEquals(expected, SnozamaHeuristic.minMobility(board, colour));
+				assertEquals(expected, SnozamaHeuristic.minMobility(new BitBoard(board), colour));
+				
+				MoveManager successors = board.getSuccessors(colour);
+				assertTrue(successors.applyMove(board, random.nextInt(successors.size())));
+				colour = 1 - colour;
+			}
+		}
+	}
+	
 	@Test
 	public void testQuadrants()
 	{
@@ -108,4 +158,120 @@ public class HeuristicTest {
 		System.out.println("Turn 2 (min-mobility): "+SnozamaHeuristic.minMobility(board, Board.WHITE));
 		System.out.println("Turn 2: "+SnozamaHeuristic.evaluateBoard(board, Board.WHITE, 2));
 	}
+	
+	/**
+	 * The evaluator's tiers must match the heuristics they are built from,
+	 * however often the evaluator is reused.
+	 */
+	@Test
+	public void testEvaluator()
+	{
+		Random random = new Random(322);
+		Evaluator evaluator = new SnozamaEvaluator();
+		Board board = new Board();
+		int colour = Board.WHITE;
+		
+		for (int turn = 0; turn < 40 && !board.isTerminal(); turn++)
+		{
+			for (int player = 0; player < 2; player++)
+			{
+				assertEquals(SnozamaHeuristic.evaluateBoard(board, player, turn), evaluator.evaluate(board, player, turn));
+				assertEquals(SnozamaHeuristic.minMobility(board, player), evaluator.estimate(board, player, turn));
+			}
+			
+			MoveManager moves = board.getSuccessors(colour);
+			assertTrue(moves.applyMove(board, random.nextInt(moves.size())));
+			colour = 1 - colour;
+		}
+	}
+	
+	/**
+	 * Once the players are separated, a solved board must score beyond any
+	 * heuristic, for the winner and against the loser, but only from the
+	 * turn the evaluator starts looking for separation.
+	 */
+	@Test
+	public void testSolvedEvaluation()
+	{
+		// White keeps four squares besides its amazons, black one.
+		Board board = new Board();
+		boolean[] keep = new boolean[Board.SIZE*Board.SIZE];
+		keep[7*Board.SIZE + 0] = keep[8*Board.SIZE + 0] = keep[9*Board.SIZE + 0] = true;
+		keep[8*Board.SIZE + 3] = keep[2*Board.SIZE + 0] = true;
+		for (int row = 0; row < Board.SIZE; row++)
+		{
+			for (int col = 0; col < Board.SIZE; col++)
+			{
+				if (!keep[row*Board.SIZE + col] && !board.isOccupied(row, col))
+				{
+					assertTrue(board.placeArrow(row, col == 0 ? 1 : col - 1, row, col));
+				}
+			}
+		}
+		
+		Evaluator evaluator = new SnozamaEvaluator();
+		int turn = SnozamaEvaluator.SEPARATION_TURN;
+		assertTrue(evaluator.evaluate(board, Board.WHITE, turn) > SnozamaEvaluator.SOLVED);
+		assertTrue(evaluator.evaluate(board, Board.BLACK, turn) < -SnozamaEvaluator.SOLVED);
+		assertEquals(SnozamaHeuristic.evaluateBoard(board, Board.WHITE, turn - 1),
+				evaluator.evaluate(board, Board.WHITE, turn - 1));
+	}
+	
+	/**
+	 * Before the players are separated, a closed region must count for the
+	 * moves it is worth rather than for the squares each player owns there.
+	 */
+	@Test
+	public void testRegionCredit()
+	{
+		// Close the amazons at (3,0) and (6,0) into rows 3-6 of columns 0-1.
+		Board board = new Board();
+		int[][] walls = {{2, 0}, {2, 1}, {2, 2}, {3, 2}, {4, 2}, {5, 2}, {6, 2}, {7, 0}, {7, 1}, {7, 2}};
+		for (int[] wall : walls)
+		{
+			assertTrue(board.placeArrow(wall[0] - 1, wall[1], wall[0], wall[1]));
+		}
+		
+		int turn = SnozamaEvaluator.SEPARATION_TURN;
+		Territory territory = new Territory(board);
+		long[] solved = new long[2];
+		int exact = new RegionSolver().evaluateSolved(board, Board.WHITE, solved);
+		int msp = SnozamaHeuristic.MSP(territory, Board.WHITE) + exact
+				- territory.countOwned(Board.WHITE, solved) + territory.countOwned(Board.BLACK, solved);
+		assertTrue(msp != SnozamaHeuristic.MSP(territory, Board.WHITE));
+		
+		Evaluator evaluator = new SnozamaEvaluator(new RegionSolver());
+		assertEquals(SnozamaHeuristic.evaluateBoard(board, msp, new int[QueenReach.LINES], Board.WHITE, turn),
+				evaluator.evaluate(board, Board.WHITE, turn));
+		assertEquals(SnozamaHeuristic.evaluateBoard(board, Board.WHITE, turn - 1),
+				evaluator.evaluate(board, Board.WHITE, turn - 1));
+	}
+	
+	/**
+	 * A search must score its leaves with the evaluator it was given.
+	 */
+	@Test
+	public void testSearchEvaluator()
+	{
+		final int[] calls = new int[1];
+		Evaluator counting = new Evaluator() {
+			@Override
+			public int evaluate(Board board, int activePlayer, int turn)
+			{
+				calls[0]++;
+				return 0;
+			}
+			
+			@Override
+			public int estimate(Board board, int activePlayer, int turn)
+			{
+				return 0;
+			}
+		};
+		
+		NegaScout search = new NegaScout(System.currentTimeMillis() + 60*1000, counting);
+		search.NegaScoutSearch(new Board(), 0, 1, NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.WHITE, 0);
+		
+		assertEquals(2176, calls[0]);
+	}
 }
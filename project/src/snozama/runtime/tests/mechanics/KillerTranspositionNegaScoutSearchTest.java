@@ -4,11 +4,18 @@ package snozama.runtime.tests.mechanics;
  * NegaScout tests
  */
 
+import static org.junit.Assert.*;
+
 import org.junit.Test;
 
 import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
 import snozama.amazons.mechanics.MoveChoice;
+import snozama.amazons.mechanics.QueenRays;
+import snozama.amazons.mechanics.SnozamaEvaluator;
 import snozama.amazons.mechanics.algo.KillerTranspositionNegaScout;
+import snozama.amazons.mechanics.transtable.EvaluationCache;
+import snozama.amazons.mechanics.transtable.ZobristTTable;
 import snozama.amazons.settings.Settings;
 
 public class KillerTranspositionNegaScoutSearchTest {
@@ -28,15 +35,57 @@ public class KillerTranspositionNegaScoutSearchTest {
 		
 		System.out.println("Reached depth: "+search.depthCompleted);
 		System.out.println("Nodes: "+search.nodes);
-			int mColour = ((move & (0xf << (4*0))) >> (4*0));
-			int mAmazon = ((move & (0xf << (4*1))) >> (4*1));
-			int mRowF = ((move & (0xf << (4*2))) >> (4*2));
-			int mColF = ((move & (0xf << (4*3))) >> (4*3));
-			int mRowA = ((move & (0xf << (4*4))) >> (4*4));
-			int mColA = ((move & (0xf << (4*5))) >> (4*5));
+			int mColour = MoveManager.colourOf(move);
+			int mAmazon = MoveManager.amazonIndexOf(move);
+			int mRowF = MoveManager.finishRowOf(move);
+			int mColF = MoveManager.finishColumnOf(move);
+			int mRowA = MoveManager.arrowRowOf(move);
+			int mColA = MoveManager.arrowColumnOf(move);
 			System.out.println("Move: "+move+" = "+mColour+" "+mAmazon+" "+" "+ mRowF+mColF+" "+mRowA+mColA);
 		
 		MoveChoice mc = new MoveChoice(move, board);
 		System.out.println(mc);
 	}
+	
+	/**
+	 * Two transpositions holding the same squares with the amazons' indices
+	 * swapped share a key.  A table move stored for one must be played in
+	 * the other by the amazon on the same square, and the board left as it
+	 * was found.
+	 */
+	@Test
+	public void testPermutedTransposition()
+	{
+		// White's amazon 0 ends on (7,0) and amazon 1 on (8,2)...
+		Board first = new Board();
+		assertTrue(first.moveAmazon(6, 0, 7, 0, Board.WHITE));
+		assertTrue(first.moveAmazon(9, 3, 8, 2, Board.WHITE));
+		
+		// ...or the other way around.
+		Board second = new Board();
+		assertTrue(second.moveAmazon(6, 0, 8, 2, Board.WHITE));
+		assertTrue(second.moveAmazon(9, 3, 9, 0, Board.WHITE));
+		assertTrue(second.moveAmazon(9, 0, 7, 0, Board.WHITE));
+		
+		long key = ZobristTTable.computeBoardHash(first, Board.WHITE);
+		assertEquals(key, ZobristTTable.computeBoardHash(second, Board.WHITE));
+		int move = MoveManager.encodeMove(Board.WHITE, 0, QueenRays.square(7, 5), QueenRays.square(7, 0));
+		assertTrue(first.isValidMove(move));
+		assertFalse(second.isValidMove(move));
+		
+		// The move shoots back onto the square it left, which in the second
+		// board is amazon 1's.  The record is deep enough for its move to be
+		// tried first, and the window so narrow that it cuts off, so no later
+		// move would put a broken board back together.
+		ZobristTTable table = new ZobristTTable(1000);
+		int stored = ZobristTTable.toTableMove(first, move);
+		table.put(key, 5, ZobristTTable.LOWER_BOUND, 1000000, stored);
+		
+		Board before = second.copy();
+		KillerTranspositionNegaScout search = new KillerTranspositionNegaScout(System.currentTimeMillis() + 25*1000, table, second,
+				new SnozamaEvaluator(), new EvaluationCache(EvaluationCache.DEFAULT_SIZE));
+		search.NegaScoutSearch(second, 0, 1, -1000000, -999999, Board.WHITE, 1);
+		assertEquals(before, second);
+		assertEquals(stored, ZobristTTable.moveOf(table.probe(key)));
+	}
 }
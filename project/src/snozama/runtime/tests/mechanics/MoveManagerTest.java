@@ -2,11 +2,15 @@ package snozama.runtime.tests.mechanics;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.Test;
 
 import snozama.amazons.global.GlobalFunctions;
 import snozama.amazons.mechanics.Board;
 import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
 
 public class MoveManagerTest {
 	/**
@@ -18,7 +22,7 @@ public class MoveManagerTest {
 		MoveManager moves = new MoveManager();
 		
 		assertTrue(moves.size() == 0);
-		assertTrue(moves.maxSize() == 2176);
+		assertTrue(moves.maxSize() == MoveManager.MAX_MOVES);
 		
 	}
 	
@@ -208,4 +212,157 @@ public class MoveManagerTest {
 			next = successors.nextIterableIndex();
 		}
 	}
+	
+	/**
+	 * Moves generated in stages must match the full set of moves, in order,
+	 * even when moves are applied and undone between iterations.
+	 */
+	@Test
+	public void testStagedGeneration()
+	{
+		Board board = new Board();
+		assertTrue(board.move(6, 0, 5, 0, 5, 5, Board.WHITE));
+		Board original = new Board(board);
+		
+		MoveManager expected = board.getSuccessors(Board.BLACK);
+		MoveManager staged = new MoveManager();
+		staged.stage(board, Board.BLACK);
+		
+		assertTrue(staged.size() < expected.size());
+		
+		int count = 0;
+		while (staged.hasIterations())
+		{
+			int next = staged.nextIterableIndex();
+			assertEquals(expected.getMove(next), staged.getMove(next));
+			
+			int row_s = Board.decodeAmazonRow(board.amazons[Board.BLACK][staged.getAmazonIndex(next)]);
+			int col_s = Board.decodeAmazonColumn(board.amazons[Board.BLACK][staged.getAmazonIndex(next)]);
+			assertTrue(staged.applyMove(board, next));
+			assertTrue(staged.undoMove(board, next, row_s, col_s));
+			assertTrue(original.equals(board));
+			count++;
+		}
+		assertEquals(expected.size(), count);
+		
+		// Stopping early leaves the rest ungenerated until asked for.
+		staged.stage(board, Board.BLACK);
+		assertTrue(staged.hasIterations());
+		int partial = staged.size();
+		assertTrue(partial < expected.size());
+		staged.finishGeneration();
+		assertEquals(expected.size(), staged.size());
+		
+		// Starting over forgets the pending destinations.
+		staged.stage(board, Board.BLACK);
+		staged.clear();
+		assertFalse(staged.hasIterations());
+	}
+	
+	/**
+	 * Every part of a move must survive encoding, through both the static
+	 * accessors and decodeMove.
+	 */
+	/**
+	 * Shuffled destinations must still yield every move exactly once,
+	 * generated only as the iterator reaches them.
+	 */
+	@Test
+	public void testShuffleDestinations()
+	{
+		Board board = new Board();
+		MoveManager expected = board.getSuccessors(Board.WHITE);
+		MoveManager staged = new MoveManager();
+		staged.stage(board, Board.WHITE);
+		staged.shuffleDestinations(new Random(322));
+		assertTrue(staged.hasIterations());
+		assertTrue(staged.size() < expected.size());
+		
+		int[] found = new int[expected.size()];
+		int inOrder = 0;
+		while (staged.hasIterations())
+		{
+			int next = staged.nextIterableIndex();
+			found[next] = staged.getMove(next);
+			if (found[next] == expected.getMove(next))
+			{
+				inOrder++;
+			}
+		}
+		assertEquals(expected.size(), staged.size());
+		assertTrue(inOrder < expected.size());
+		
+		int[] all = new int[expected.size()];
+		for (int i = 0; i < all.length; i++)
+		{
+			all[i] = expected.getMove(i);
+		}
+		Arrays.sort(all);
+		Arrays.sort(found);
+		assertArrayEquals(all, found);
+	}
+	
+	/**
+	 * Sorting must only reorder the moves in the list, whatever the scores
+	 * array holds past its end.
+	 */
+	@Test
+	public void testSortWithinSize()
+	{
+		Board board = new Board();
+		MoveManager successors = board.getSuccessors(Board.WHITE);
+		int[] first = {successors.getMove(0), successors.getMove(1), successors.getMove(2)};
+		successors.setSize(3);
+		
+		int[] sortBy = new int[MoveManager.MAX_MOVES];
+		sortBy[0] = 1;
+		sortBy[1] = 3;
+		sortBy[2] = 2;
+		sortBy[3] = 100;
+		successors.sort(sortBy);
+		
+		assertEquals(3, successors.size());
+		assertEquals(first[1], successors.getMove(0));
+		assertEquals(first[2], successors.getMove(1));
+		assertEquals(first[0], successors.getMove(2));
+	}
+	
+	@Test
+	public void testMoveEncoding()
+	{
+		MoveManager moves = new MoveManager();
+		
+		for (int colour = 0; colour < 2; colour++)
+		{
+			for (int arr_i = 0; arr_i < 4; arr_i++)
+			{
+				for (int finish = 0; finish < QueenRays.SQUARES; finish += 7)
+				{
+					for (int arrow = 0; arrow < QueenRays.SQUARES; arrow += 3)
+					{
+						int move = MoveManager.encodeMove(colour, arr_i, finish, arrow);
+						
+						assertTrue(move != 0 || finish == arrow);
+						assertEquals(colour, MoveManager.colourOf(move));
+						assertEquals(arr_i, MoveManager.amazonIndexOf(move));
+						assertEquals(finish, MoveManager.finishSquareOf(move));
+						assertEquals(arrow, MoveManager.arrowSquareOf(move));
+						
+						int[] decoded = MoveManager.decodeMove(move);
+						assertEquals(colour, decoded[MoveManager.PLAYER_COLOUR]);
+						assertEquals(arr_i, decoded[MoveManager.AMAZON_ARRAY_INDEX]);
+						assertEquals(QueenRays.ROW[finish], decoded[MoveManager.AMAZON_ROW_FINISH]);
+						assertEquals(QueenRays.COLUMN[finish], decoded[MoveManager.AMAZON_COLUMN_FINISH]);
+						assertEquals(QueenRays.ROW[arrow], decoded[MoveManager.ARROW_ROW]);
+						assertEquals(QueenRays.COLUMN[arrow], decoded[MoveManager.ARROW_COLUMN]);
+						
+						moves.clear();
+						moves.add(colour, arr_i, QueenRays.ROW[finish], QueenRays.COLUMN[finish],
+								QueenRays.ROW[arrow], QueenRays.COLUMN[arrow]);
+						assertEquals(move, moves.getMove(0));
+					}
+				}
+			}
+		}
+	}
 }
@@ -4,11 +4,17 @@ package snozama.runtime.tests.mechanics;
  * NegaScout tests
  */
 
+import static org.junit.Assert.*;
+
 import org.junit.Test;
 
 import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
 import snozama.amazons.mechanics.MoveChoice;
+import snozama.amazons.mechanics.SnozamaEvaluator;
+import snozama.amazons.mechanics.algo.MoveStack;
 import snozama.amazons.mechanics.algo.NegaScout;
+import snozama.amazons.mechanics.transtable.EvaluationCache;
 import snozama.amazons.settings.Settings;
 
 public class NegaScoutSearchTest {
@@ -25,18 +31,83 @@ public class NegaScoutSearchTest {
 		
 		System.out.println("Reached depth: "+search.depthCompleted);
 		System.out.println("Nodes: "+search.nodes);
-			int mColour = ((move & (0xf << (4*0))) >> (4*0));
-			int mAmazon = ((move & (0xf << (4*1))) >> (4*1));
-			int mRowF = ((move & (0xf << (4*2))) >> (4*2));
-			int mColF = ((move & (0xf << (4*3))) >> (4*3));
-			int mRowA = ((move & (0xf << (4*4))) >> (4*4));
-			int mColA = ((move & (0xf << (4*5))) >> (4*5));
+			int mColour = MoveManager.colourOf(move);
+			int mAmazon = MoveManager.amazonIndexOf(move);
+			int mRowF = MoveManager.finishRowOf(move);
+			int mColF = MoveManager.finishColumnOf(move);
+			int mRowA = MoveManager.arrowRowOf(move);
+			int mColA = MoveManager.arrowColumnOf(move);
 			System.out.println("Move: "+move+" = "+mColour+" "+mAmazon+" "+" "+ mRowF+mColF+" "+mRowA+mColA);
 		
 		MoveChoice mc = new MoveChoice(move, board);
 		System.out.println(mc);
 	}
 	
+	/**
+	 * Fill columns 2 to 7 of a board with arrows, apart from the amazons
+	 * there, leaving each side few enough moves to search two plies.
+	 * 
+	 * @param board		The board.
+	 * @return			The board.
+	 */
+	private Board narrowed(Board board)
+	{
+		for (int row = 0; row < Board.SIZE; row++)
+		{
+			for (int col = 2; col < 8; col++)
+			{
+				if (!board.isOccupied(row, col))
+				{
+					assertTrue(board.placeArrow(row == 0 ? 1 : row - 1, col, row, col));
+				}
+			}
+		}
+		return board;
+	}
+	
+	/**
+	 * A search deeper than one ply called on its own must generate its root
+	 * moves, whatever an earlier search left on the move stack.
+	 */
+	@Test
+	public void testDirectSearch()
+	{
+		long end = System.currentTimeMillis() + 25*1000;
+		Board board = narrowed(new Board());
+		int expected = new NegaScout(end).NegaScoutSearch(board, 0, 2,
+				NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.WHITE, 1);
+		assertTrue(expected > Integer.MIN_VALUE);
+		
+		Board other = narrowed(new Board());
+		assertTrue(other.move(6, 0, 7, 0, 7, 1, Board.WHITE));
+		NegaScout search = new NegaScout(end);
+		search.NegaScoutSearch(other, 0, 1, NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.BLACK, 2);
+		assertEquals(expected, search.NegaScoutSearch(board, 0, 2,
+				NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.WHITE, 1));
+	}
+	
+	/**
+	 * Searches handed the same move stack one after the other must score as
+	 * a search with a move stack of its own does.
+	 */
+	@Test
+	public void testSharedMoveStack()
+	{
+		long end = System.currentTimeMillis() + 25*1000;
+		Board board = narrowed(new Board());
+		int expected = new NegaScout(end).NegaScoutSearch(board, 0, 2,
+				NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.WHITE, 1);
+		
+		MoveStack moveStack = new MoveStack(20);
+		Board other = narrowed(new Board());
+		assertTrue(other.move(6, 0, 7, 0, 7, 1, Board.WHITE));
+		new NegaScout(end, new SnozamaEvaluator(), new EvaluationCache(EvaluationCache.SEARCH_SIZE), moveStack)
+				.NegaScoutSearch(other, 0, 2, NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.BLACK, 2);
+		NegaScout search = new NegaScout(end, new SnozamaEvaluator(), new EvaluationCache(EvaluationCache.SEARCH_SIZE), moveStack);
+		assertEquals(expected, search.NegaScoutSearch(board, 0, 2,
+				NegaScout.NEG_INFINITY, NegaScout.POS_INFINITY, Board.WHITE, 1));
+	}
+	
 	//@Test
 	public void testChooseMove()
 	{
@@ -0,0 +1,57 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.BitBoard;
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Perft;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.Perft.java
+ */
+public class PerftTest {
+	
+	/**
+	 * Every board representation must reproduce the stored counts, and leave
+	 * the board as it found it.
+	 */
+	@Test
+	public void testReferenceCounts()
+	{
+		for (int position = 0; position < Perft.REFERENCE_NAMES.length; position++)
+		{
+			Board[] boards = {new Board(), new BitBoard()};
+			for (Board board : boards)
+			{
+				int colour = Perft.setUp(board, position);
+				Board before = new Board(board);
+				long[] counts = Perft.REFERENCE_COUNTS[position];
+				
+				// Keep the test quick: the deeper counts are for PerftDemo.
+				for (int depth = 1; depth <= counts.length && counts[depth-1] < 5000000; depth++)
+				{
+					assertEquals(counts[depth-1], Perft.perft(board, colour, depth));
+					assertTrue(before.equals(board));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Splitting the root between threads must not change the count.
+	 */
+	@Test
+	public void testParallel()
+	{
+		Board board = new BitBoard();
+		int colour = Perft.setUp(board, 2);
+		Board before = new Board(board);
+		
+		assertEquals(Perft.REFERENCE_COUNTS[2][2], Perft.perft(board, colour, 3, 4));
+		assertEquals(Perft.REFERENCE_COUNTS[2][1], Perft.perft(board, colour, 2, 2));
+		assertEquals(Perft.REFERENCE_COUNTS[2][0], Perft.perft(board, colour, 1, 2));
+		assertTrue(before.equals(board));
+	}
+}
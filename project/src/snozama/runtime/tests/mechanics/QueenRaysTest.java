@@ -0,0 +1,61 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.QueenRays;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.QueenRays.java
+ */
+public class QueenRaysTest {
+	
+	/**
+	 * Square indices must agree with encoded amazon positions.
+	 */
+	@Test
+	public void testSquareNumbering()
+	{
+		for (int row = 0; row < Board.SIZE; row++)
+		{
+			for (int col = 0; col < Board.SIZE; col++)
+			{
+				int square = QueenRays.square(row, col);
+				assertEquals(Board.encodeAmazonPosition(row, col), square);
+				assertEquals(row, QueenRays.ROW[square]);
+				assertEquals(col, QueenRays.COLUMN[square]);
+			}
+		}
+	}
+	
+	/**
+	 * Test the rays of a corner square and a central square.
+	 */
+	@Test
+	public void testRays()
+	{
+		int corner = QueenRays.square(0, 0);
+		assertEquals(9, QueenRays.RAYS[corner][QueenRays.RIGHT].length);
+		assertEquals(0, QueenRays.RAYS[corner][QueenRays.LEFT].length);
+		assertEquals(9, QueenRays.RAYS[corner][QueenRays.DOWN].length);
+		assertEquals(0, QueenRays.RAYS[corner][QueenRays.UP].length);
+		assertEquals(9, QueenRays.RAYS[corner][QueenRays.DIAGONAL_RIGHT].length);
+		assertEquals(QueenRays.square(9, 9), QueenRays.RAYS[corner][QueenRays.DIAGONAL_RIGHT][8]);
+		
+		int centre = QueenRays.square(4, 5);
+		int[] ray = QueenRays.RAYS[centre][QueenRays.ANTI_DIAGONAL_RIGHT];
+		assertEquals(4, ray.length);
+		assertEquals(QueenRays.square(3, 6), ray[0]);
+		assertEquals(QueenRays.square(0, 9), ray[3]);
+		
+		// A queen in the centre reaches 35 squares on an empty board.
+		int total = 0;
+		for (int d = 0; d < QueenRays.DIRECTIONS; d++)
+		{
+			total += QueenRays.RAYS[centre][d].length;
+		}
+		assertEquals(35, total);
+	}
+}
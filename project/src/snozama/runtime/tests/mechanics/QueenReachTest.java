@@ -0,0 +1,75 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.QueenRays;
+import snozama.amazons.mechanics.QueenReach;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.QueenReach.java
+ */
+public class QueenReachTest {
+	
+	/**
+	 * Every square must sit on four distinct lines, at the position the line
+	 * records for it.
+	 */
+	@Test
+	public void testLines()
+	{
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			for (int o = 0; o < QueenReach.ORIENTATIONS; o++)
+			{
+				int line = QueenReach.LINE[square][o];
+				int pos = QueenReach.POSITION[square][o];
+				assertEquals(square, QueenReach.LINE_SQUARES[line][pos]);
+				assertEquals(0, QueenReach.OFF_BOARD[line] & (1 << pos));
+			}
+		}
+		
+		// The corner diagonals hold a single square.
+		int corner = QueenRays.square(9, 0);
+		assertEquals(~(1 << 0) & 0x3ff, QueenReach.OFF_BOARD[QueenReach.LINE[corner][QueenReach.DIAGONAL]]);
+	}
+	
+	/**
+	 * On an empty board the lookups must reach every square the rays do.
+	 */
+	@Test
+	public void testReachEmptyBoard()
+	{
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			int total = 0;
+			for (int o = 0; o < QueenReach.ORIENTATIONS; o++)
+			{
+				int line = QueenReach.LINE[square][o];
+				total += Integer.bitCount(QueenReach.reach(QueenReach.POSITION[square][o], QueenReach.OFF_BOARD[line]));
+			}
+			
+			int expected = 0;
+			for (int d = 0; d < QueenRays.DIRECTIONS; d++)
+			{
+				expected += QueenRays.RAYS[square][d].length;
+			}
+			assertEquals(expected, total);
+		}
+	}
+	
+	/**
+	 * Reach must stop at the first blocker on either side.
+	 */
+	@Test
+	public void testReachBlocked()
+	{
+		// Queen at 4, blockers at 1 and 7: reaches 2, 3, 5 and 6.
+		int occupancy = (1 << 1) | (1 << 7);
+		assertEquals((1 << 2) | (1 << 3) | (1 << 5) | (1 << 6), QueenReach.reach(4, occupancy));
+		
+		// Queen at the end of a full line reaches nothing.
+		assertEquals(0, QueenReach.reach(0, 0x3fe));
+	}
+}
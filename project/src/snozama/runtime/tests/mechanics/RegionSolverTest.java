@@ -0,0 +1,231 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.BitBoard;
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
+import snozama.amazons.mechanics.RegionSolver;
+import snozama.amazons.mechanics.Regions;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.RegionSolver.java
+ */
+public class RegionSolverTest {
+	
+	/**
+	 * Walls closing white's amazon at (6,0) into rows 6-9 of columns 0-1,
+	 * with one arrow inside.
+	 */
+	private static final int[][] WHITE_POCKET = {
+		{5, 0}, {5, 1}, {5, 2}, {6, 2}, {7, 2}, {8, 2}, {9, 2}, {8, 1}
+	};
+	
+	/**
+	 * Walls closing black's amazon at (3,0) into rows 1-3 of columns 0-1.
+	 */
+	private static final int[][] BLACK_POCKET = {
+		{0, 0}, {0, 1}, {0, 2}, {1, 2}, {2, 2}, {3, 2}, {4, 0}, {4, 1}, {4, 2}
+	};
+	
+	/**
+	 * Walls closing the amazons at (3,0) and (6,0) into rows 3-6 of columns
+	 * 0-1 together.
+	 */
+	private static final int[][] SHARED_POCKET = {
+		{2, 0}, {2, 1}, {2, 2}, {3, 2}, {4, 2}, {5, 2}, {6, 2}, {7, 0}, {7, 1}, {7, 2}
+	};
+	
+	/**
+	 * Place arrows on a board, each shot from a neighbouring square.
+	 * 
+	 * @param board		The board.
+	 * @param arrows	The squares to place arrows on, as row and column.
+	 * @return			The board.
+	 */
+	private Board walled(Board board, int[][] arrows)
+	{
+		for (int[] arrow : arrows)
+		{
+			int row = arrow[0] == 0 ? 1 : arrow[0] - 1;
+			assertTrue(board.placeArrow(row, arrow[1], arrow[0], arrow[1]));
+		}
+		return board;
+	}
+	
+	/**
+	 * Solve the region holding a square.
+	 * 
+	 * @param solver	The solver.
+	 * @param board		The board.
+	 * @param row		The row of the square.
+	 * @param col		The column of the square.
+	 * @param colour	The colour of the player to move.
+	 * @return			The value found by the solver.
+	 */
+	private int solve(RegionSolver solver, Board board, int row, int col, int colour)
+	{
+		Regions regions = new Regions();
+		regions.analyse(board);
+		long[] squares = new long[2];
+		regions.getSquares(regions.getRegion(QueenRays.square(row, col)), squares);
+		return solver.solve(board, squares, colour);
+	}
+	
+	/**
+	 * Find by brute force the most moves one amazon can make.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the amazon.
+	 * @param index		The index of the amazon.
+	 * @return			The number of moves.
+	 */
+	private int maxMoves(Board board, int colour, int index)
+	{
+		MoveManager successors = board.getSuccessors(colour);
+		int best = 0;
+		for (int i = 0; i < successors.size(); i++)
+		{
+			if (successors.getAmazonIndex(i) != index)
+			{
+				continue;
+			}
+			int amazon = board.amazons[colour][index];
+			successors.applyMove(board, i);
+			best = Math.max(best, 1 + maxMoves(board, colour, index));
+			successors.undoMove(board, i, QueenRays.ROW[amazon], QueenRays.COLUMN[amazon]);
+		}
+		return best;
+	}
+	
+	/**
+	 * Find by brute force the value of a region holding one amazon of each
+	 * colour.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour of the player to move.
+	 * @param index		The index of the amazon of the player to move.
+	 * @param other		The index of the other player's amazon.
+	 * @return			The moves of the player to move minus those of the
+	 * 					other player.
+	 */
+	private int contest(Board board, int colour, int index, int other)
+	{
+		MoveManager successors = board.getSuccessors(colour);
+		int best = Integer.MIN_VALUE;
+		for (int i = 0; i < successors.size(); i++)
+		{
+			if (successors.getAmazonIndex(i) != index)
+			{
+				continue;
+			}
+			int amazon = board.amazons[colour][index];
+			successors.applyMove(board, i);
+			best = Math.max(best, 1 - contest(board, 1 - colour, other, index));
+			successors.undoMove(board, i, QueenRays.ROW[amazon], QueenRays.COLUMN[amazon]);
+		}
+		return best == Integer.MIN_VALUE ? -maxMoves(board, 1 - colour, other) : best;
+	}
+	
+	/**
+	 * Regions with a single owner are worth the moves the owner can make
+	 * there, to the owner.
+	 */
+	@Test
+	public void testOwned()
+	{
+		Board[] boards = {new Board(), new BitBoard()};
+		for (Board board : boards)
+		{
+			walled(board, WHITE_POCKET);
+			walled(board, BLACK_POCKET);
+			RegionSolver solver = new RegionSolver();
+			
+			int white = maxMoves(board, Board.WHITE, 0);
+			int black = maxMoves(board, Board.BLACK, 0);
+			assertEquals(6, white);
+			assertEquals(5, black);
+			
+			assertEquals(white, solve(solver, board, 6, 0, Board.WHITE));
+			assertEquals(-white, solve(solver, board, 6, 0, Board.BLACK));
+			assertEquals(black, solve(solver, board, 3, 0, Board.BLACK));
+			assertEquals(-black, solve(solver, board, 3, 0, Board.WHITE));
+			
+			// The other amazons still share the rest of the board.
+			assertEquals(RegionSolver.UNKNOWN, solve(solver, board, 0, 3, Board.WHITE));
+			assertEquals(RegionSolver.UNKNOWN, solver.evaluate(board, Board.WHITE));
+		}
+	}
+	
+	/**
+	 * A region holding both colours is played out by both.
+	 */
+	@Test
+	public void testContested()
+	{
+		Board board = walled(new BitBoard(), SHARED_POCKET);
+		RegionSolver solver = new RegionSolver();
+		
+		int white = contest(board, Board.WHITE, 0, 0);
+		int black = contest(board, Board.BLACK, 0, 0);
+		assertEquals(white, solve(solver, board, 6, 0, Board.WHITE));
+		assertEquals(black, solve(solver, board, 3, 0, Board.BLACK));
+	}
+	
+	/**
+	 * A board that is not separated must still have its closed regions
+	 * solved, contested ones included, without the total counting as exact.
+	 */
+	@Test
+	public void testEvaluateSolved()
+	{
+		RegionSolver solver = new RegionSolver(RegionSolver.SEARCH_SIZE);
+		long[] solved = new long[2];
+		int inside = QueenRays.square(7, 0);
+		int outside = QueenRays.square(0, 3);
+		
+		Board board = walled(new Board(), WHITE_POCKET);
+		assertEquals(maxMoves(board, Board.WHITE, 0), solver.evaluateSolved(board, Board.WHITE, solved));
+		assertFalse(solver.isExact());
+		assertTrue((solved[inside >>> 6] & (1L << inside)) != 0);
+		assertTrue((solved[outside >>> 6] & (1L << outside)) == 0);
+		
+		Board shared = walled(new BitBoard(), SHARED_POCKET);
+		assertEquals(contest(shared, Board.BLACK, 0, 0), solver.evaluateSolved(shared, Board.BLACK, solved));
+		assertFalse(solver.isExact());
+		assertTrue((solved[inside >>> 6] & (1L << inside)) == 0);
+		assertEquals(RegionSolver.UNKNOWN, solver.evaluate(shared, Board.BLACK));
+	}
+	
+	/**
+	 * The memo must answer a region it has solved, and the same shape
+	 * elsewhere on the board, without searching.
+	 */
+	@Test
+	public void testMemo()
+	{
+		RegionSolver solver = new RegionSolver();
+		Board board = walled(new Board(), WHITE_POCKET);
+		int value = solve(solver, board, 6, 0, Board.WHITE);
+		long misses = solver.misses;
+		long hits = solver.hits;
+		
+		assertEquals(value, solve(solver, board, 6, 0, Board.WHITE));
+		assertEquals(misses, solver.misses);
+		assertEquals(hits + 1, solver.hits);
+		
+		// The same pocket one row up.
+		Board shifted = new Board();
+		assertTrue(shifted.moveAmazon(6, 0, 5, 0, Board.WHITE));
+		walled(shifted, new int[][] {
+			{4, 0}, {4, 1}, {4, 2}, {5, 2}, {6, 2}, {7, 2}, {8, 2}, {9, 0},
+			{9, 1}, {9, 2}, {7, 1}
+		});
+		assertEquals(value, solve(solver, shifted, 5, 0, Board.WHITE));
+		assertEquals(misses, solver.misses);
+		assertEquals(hits + 2, solver.hits);
+	}
+}
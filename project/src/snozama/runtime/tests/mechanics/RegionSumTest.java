@@ -0,0 +1,103 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.BitBoard;
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
+import snozama.amazons.mechanics.RegionSolver;
+import snozama.amazons.mechanics.RegionSum;
+import snozama.amazons.mechanics.Regions;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.RegionSum.java
+ */
+public class RegionSumTest {
+	
+	/**
+	 * The squares left empty or holding amazons: the amazons at (3,0) and
+	 * (6,0) share rows 3-6 of columns 0-1, and every other amazon has a
+	 * pocket of two empty squares to itself.
+	 */
+	private static final int[][] POCKETS = {
+		{3, 0}, {3, 1}, {4, 0}, {4, 1}, {5, 0}, {5, 1}, {6, 0}, {6, 1},
+		{9, 3}, {8, 3}, {8, 2},
+		{9, 6}, {9, 7}, {8, 7},
+		{6, 9}, {7, 9}, {8, 9},
+		{0, 3}, {0, 4}, {1, 3},
+		{0, 6}, {0, 7}, {1, 7},
+		{3, 9}, {2, 9}, {4, 9}
+	};
+	
+	/**
+	 * Build a board split into the regions of {@link #POCKETS} by filling
+	 * every other square with an arrow.
+	 * 
+	 * @param board		The opening board to build on.
+	 * @return			The board.
+	 */
+	private Board split(Board board)
+	{
+		boolean[] keep = new boolean[QueenRays.SQUARES];
+		for (int[] square : POCKETS)
+		{
+			keep[QueenRays.square(square[0], square[1])] = true;
+		}
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			if (!keep[square])
+			{
+				int row = QueenRays.ROW[square];
+				int col = QueenRays.COLUMN[square];
+				assertTrue(board.placeArrow(row == 0 ? 1 : row - 1, col, row, col));
+			}
+		}
+		return board;
+	}
+	
+	/**
+	 * The opening is one large region and must be left to the search.
+	 */
+	@Test
+	public void testOpening()
+	{
+		assertEquals(-1, new RegionSum().chooseMove(new Board(), Board.WHITE));
+	}
+	
+	/**
+	 * With every region small, the move is made in the contested region
+	 * and is the best move there.
+	 */
+	@Test
+	public void testHottest()
+	{
+		Board[] boards = {split(new Board()), split(new BitBoard())};
+		for (Board board : boards)
+		{
+			RegionSolver solver = new RegionSolver();
+			RegionSum sum = new RegionSum(solver);
+			Regions regions = new Regions();
+			assertEquals(7, regions.analyse(board));
+			long[] shared = new long[2];
+			regions.getSquares(regions.getRegion(QueenRays.square(6, 0)), shared);
+			
+			int first = solver.solve(board, shared, Board.WHITE);
+			int second = solver.solve(board, shared, Board.BLACK);
+			int move = sum.chooseMove(board, Board.WHITE);
+			assertTrue(board.isValidMove(move));
+			assertEquals(0, MoveManager.getAmazonIndexFromUnmanagedMove(move, board));
+			assertEquals(first + second, sum.getGain());
+			assertTrue(sum.getGain() > 0);
+			
+			// After the best move, black is left with what white was
+			// promised.
+			assertTrue(MoveManager.applyUnmanagedMove(board, move));
+			regions.analyse(board);
+			regions.getSquares(regions.getRegion(QueenRays.square(3, 0)), shared);
+			assertEquals(1 - first, solver.solve(board, shared, Board.BLACK));
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
+import snozama.amazons.mechanics.Regions;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.Regions.java
+ */
+public class RegionsTest {
+	
+	/**
+	 * The opening position is a single region of the whole board.
+	 */
+	@Test
+	public void testOpening()
+	{
+		Board board = new Board();
+		Regions regions = new Regions();
+		
+		assertEquals(1, regions.analyse(board));
+		assertEquals(QueenRays.SQUARES, regions.getRegionSize(1));
+		assertEquals(0, regions.evaluate(board, Board.WHITE));
+		
+		// Wall off the bottom left corner with arrows.
+		assertTrue(board.placeArrow(6, 0, 7, 0));
+		assertTrue(board.placeArrow(6, 0, 7, 1));
+		assertTrue(board.placeArrow(8, 0, 8, 1));
+		assertTrue(board.placeArrow(9, 0, 9, 1));
+		
+		assertEquals(2, regions.analyse(board));
+		assertEquals(-1, regions.getRegion(QueenRays.square(7, 0)));
+		assertEquals(2, regions.getRegion(QueenRays.square(9, 0)));
+		assertEquals(2, regions.getRegionSize(2));
+		
+		regions.setType(Regions.DIAGONAL);
+		assertEquals(Regions.DIAGONAL, regions.getType());
+		assertTrue(regions.analyse(board) > 2);
+	}
+	
+	/**
+	 * Analysers used from several threads at once must agree with the
+	 * static methods.
+	 */
+	@Test
+	public void testParallel() throws Exception
+	{
+		final List<Board> boards = new ArrayList<Board>();
+		Random random = new Random(322);
+		Board board = new Board();
+		int colour = Board.WHITE;
+		while (!board.isTerminal())
+		{
+			boards.add(new Board(board));
+			MoveManager moves = board.getSuccessors(colour);
+			assertTrue(moves.applyMove(board, random.nextInt(moves.size())));
+			colour = 1 - colour;
+		}
+		
+		final int[][] expected = new int[3][boards.size()];
+		for (int type = 0; type < 3; type++)
+		{
+			for (int i = 0; i < boards.size(); i++)
+			{
+				expected[type][i] = Regions.region(boards.get(i), Board.WHITE, type);
+			}
+		}
+		
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 4; t++)
+			{
+				final int type = t % 3;
+				results.add(pool.submit(new Callable<Boolean>() {
+					public Boolean call()
+					{
+						Regions regions = new Regions(type);
+						for (int repeat = 0; repeat < 20; repeat++)
+						{
+							for (int i = 0; i < boards.size(); i++)
+							{
+								if (regions.evaluate(boards.get(i), Board.WHITE) != expected[type][i])
+								{
+									return false;
+								}
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results)
+			{
+				assertTrue(result.get());
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.Evaluator;
+import snozama.amazons.mechanics.algo.SelectiveNegaScout;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.algo.SelectiveNegaScout.java
+ */
+public class SelectiveNegaScoutSearchTest {
+
+	/**
+	 * Fill the board with arrows, except for one square beside each amazon.
+	 * Each amazon then has a single move: into its square, shooting back
+	 * where it came from.
+	 */
+	private Board pockets(Board board)
+	{
+		int[][] open = {{7, 0}, {8, 3}, {8, 6}, {7, 9}, {2, 0}, {1, 3}, {1, 6}, {2, 9}};
+		for (int row = 0; row < Board.SIZE; row++)
+		{
+			for (int col = 0; col < Board.SIZE; col++)
+			{
+				boolean keep = board.isOccupied(row, col);
+				for (int i = 0; i < open.length; i++)
+				{
+					keep |= open[i][0] == row && open[i][1] == col;
+				}
+				if (!keep)
+				{
+					assertTrue(board.placeArrow(row == 0 ? 1 : row - 1, col, row, col));
+				}
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Get a bit for the white amazon that has moved into its square.
+	 */
+	private static int moved(Board board)
+	{
+		return (board.isWhite(7, 0) ? 1 : 0) | (board.isWhite(8, 3) ? 2 : 0)
+				| (board.isWhite(8, 6) ? 4 : 0) | (board.isWhite(7, 9) ? 8 : 0);
+	}
+
+	/**
+	 * A root move trimmed by one iteration must be searched again by a later
+	 * iteration that no longer trims it.
+	 */
+	@Test
+	public void testTrimmedRootReturns()
+	{
+		// After one ply, white's first two moves look good and the others bad,
+		// so the second iteration searches only those two.  After two plies
+		// they look bad as well, which leaves nothing for the third iteration
+		// to trim.
+		Evaluator scripted = new Evaluator()
+		{
+			public int evaluate(Board board, int activePlayer, int turn)
+			{
+				if (turn == 2)
+				{
+					return (moved(board) & 3) != 0 ? -1 : 1;
+				}
+				return turn == 3 ? -1 : 0;
+			}
+
+			public int estimate(Board board, int activePlayer, int turn)
+			{
+				return evaluate(board, activePlayer, turn);
+			}
+		};
+
+		final int[] searched = new int[21];
+		SelectiveNegaScout search = new SelectiveNegaScout(System.currentTimeMillis() + 25*1000, scripted)
+		{
+			public int NegaScoutSearch(Board board, int depth, int maxDepth, int alpha, int beta, int colour, int turn)
+			{
+				if (depth == 1)
+				{
+					searched[maxDepth] |= moved(board);
+				}
+				return super.NegaScoutSearch(board, depth, maxDepth, alpha, beta, colour, turn);
+			}
+		};
+		search.IDNegaScoutSearch(pockets(new Board()), Board.WHITE, 1);
+
+		assertTrue(search.depthCompleted >= 3);
+		assertEquals(15, searched[1]);
+		assertEquals(3, searched[2]);
+		assertEquals(15, searched[3]);
+	}
+}
@@ -0,0 +1,182 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.transtable.SharedTTable;
+import snozama.amazons.mechanics.transtable.ZobristTTable;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.transtable.SharedTTable.java
+ */
+public class SharedTTableTest {
+	
+	/**
+	 * The number of threads storing into and probing the table at once.
+	 */
+	private static final int THREADS = 8;
+	
+	/**
+	 * The number of stores and probes made by each thread.
+	 */
+	private static final int ITERATIONS = 200000;
+	
+	/**
+	 * The positions stored, far more than the table holds.
+	 */
+	private static final long[] KEYS = new long[1024];
+	
+	static
+	{
+		Random random = new Random(322);
+		for (int i = 0; i < KEYS.length; i++)
+		{
+			KEYS[i] = random.nextLong();
+		}
+	}
+	
+	/**
+	 * Get the depth stored for a key.
+	 */
+	private static int depth(long key)
+	{
+		return (int)((key >>> 8) & 0x3f);
+	}
+	
+	/**
+	 * Get the flag stored for a key.
+	 */
+	private static int flag(long key)
+	{
+		return (int)((key >>> 16) & 0xffff) % 3 - 1;
+	}
+	
+	/**
+	 * Get the score stored for a key.
+	 */
+	private static int score(long key)
+	{
+		return (int)(key >>> 32);
+	}
+	
+	/**
+	 * Get the move stored for a key.
+	 */
+	private static int move(long key)
+	{
+		return (int)(key & 0x1ffff);
+	}
+	
+	@Test
+	public void testPutProbe() {
+		SharedTTable table = new SharedTTable(1000);
+		assertEquals(1000, table.size());
+		
+		long key = KEYS[0];
+		assertEquals(ZobristTTable.MISS, table.probe(key));
+		assertTrue(table.put(key, 7, ZobristTTable.UPPER_BOUND, -250, 27209));
+		
+		int[] record = new int[ZobristTTable.RECORD_SIZE];
+		assertTrue(table.probe(key, record));
+		assertEquals(7, record[ZobristTTable.DEPTH]);
+		assertEquals(ZobristTTable.UPPER_BOUND, record[ZobristTTable.FLAG]);
+		assertEquals(-250, record[ZobristTTable.SCORE]);
+		assertEquals(27209, record[ZobristTTable.MOVE]);
+		
+		// A key sharing the bucket is not mistaken for the one stored.
+		assertFalse(table.probe(key + 1000, record));
+		assertEquals(-1, record[ZobristTTable.DEPTH]);
+	}
+	
+	@Test
+	public void testReplacement() {
+		// One bucket.
+		SharedTTable table = new SharedTTable(ZobristTTable.BUCKET_SIZE);
+		for (int i = 0; i < ZobristTTable.BUCKET_SIZE; i++)
+		{
+			assertTrue(table.put(KEYS[i], 5, ZobristTTable.EXACT_SCORE, i, i));
+		}
+		
+		// Shallower entries do not push out deeper ones, deeper entries do.
+		assertFalse(table.put(KEYS[10], 4, ZobristTTable.EXACT_SCORE, 10, 10));
+		assertEquals(ZobristTTable.MISS, table.probe(KEYS[10]));
+		assertTrue(table.put(KEYS[10], 6, ZobristTTable.EXACT_SCORE, 10, 10));
+		assertEquals(10, ZobristTTable.scoreOf(table.probe(KEYS[10])));
+		
+		// After a new generation any entry may be replaced.
+		table.nextGeneration();
+		assertTrue(table.put(KEYS[11], 0, ZobristTTable.EXACT_SCORE, 11, 11));
+		assertEquals(11, ZobristTTable.scoreOf(table.probe(KEYS[11])));
+	}
+	
+	/**
+	 * Many threads storing into a small table must never let a probe return
+	 * an entry mixing the words of two stores.
+	 */
+	@Test
+	public void testStress() throws InterruptedException {
+		// Few buckets, so threads constantly overwrite each other's entries.
+		final SharedTTable table = new SharedTTable(64);
+		final AtomicLong hits = new AtomicLong();
+		final AtomicInteger torn = new AtomicInteger();
+		
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++)
+		{
+			final long seed = t;
+			threads[t] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					Random random = new Random(seed);
+					int[] record = new int[ZobristTTable.RECORD_SIZE];
+					for (int i = 0; i < ITERATIONS; i++)
+					{
+						long key = KEYS[random.nextInt(KEYS.length)];
+						table.put(key, depth(key), flag(key), score(key), move(key));
+						
+						key = KEYS[random.nextInt(KEYS.length)];
+						if (table.probe(key, record))
+						{
+							hits.incrementAndGet();
+							if (record[ZobristTTable.DEPTH] != depth(key) ||
+									record[ZobristTTable.FLAG] != flag(key) ||
+									record[ZobristTTable.SCORE] != score(key) ||
+									record[ZobristTTable.MOVE] != move(key))
+							{
+								torn.incrementAndGet();
+							}
+						}
+					}
+				}
+			});
+		}
+		for (Thread thread : threads)
+		{
+			thread.start();
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		
+		assertEquals(0, torn.get());
+		assertTrue(hits.get() > 0);
+		
+		// Every entry left behind belongs to the key it answers to.
+		for (long key : KEYS)
+		{
+			long data = table.probe(key);
+			if (data != ZobristTTable.MISS)
+			{
+				assertEquals(score(key), ZobristTTable.scoreOf(data));
+				assertEquals(move(key), ZobristTTable.moveOf(data));
+			}
+		}
+	}
+}
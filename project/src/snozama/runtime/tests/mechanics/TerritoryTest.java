@@ -0,0 +1,178 @@
+package snozama.runtime.tests.mechanics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import snozama.amazons.mechanics.BitBoard;
+import snozama.amazons.mechanics.Board;
+import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
+import snozama.amazons.mechanics.SnozamaHeuristic;
+import snozama.amazons.mechanics.Territory;
+
+/**
+ * Unit tests for snozama.amazons.mechanics.Territory.java
+ */
+public class TerritoryTest {
+	
+	/**
+	 * The opening position is symmetric, so neither player owns more.
+	 */
+	@Test
+	public void testOpening()
+	{
+		Board board = new Board();
+		Territory territory = new Territory(board);
+		
+		assertEquals(territory.countOwned(Board.WHITE), territory.countOwned(Board.BLACK));
+		assertEquals(0, SnozamaHeuristic.MSP(territory, Board.WHITE));
+		assertEquals(1, territory.getDistance(Board.WHITE, QueenRays.square(5, 0)));
+		assertEquals(Territory.UNREACHABLE, territory.getDistance(Board.WHITE, QueenRays.square(6, 0)));
+	}
+	
+	/**
+	 * Distances and ownership must match a plain breadth first search
+	 * through random games, on both board representations, and reusing the
+	 * same territory object.
+	 */
+	@Test
+	public void testMatchesSearch()
+	{
+		Random random = new Random(322);
+		Territory territory = new Territory();
+		
+		for (int game = 0; game < 5; game++)
+		{
+			Board board = new Board();
+			int colour = Board.WHITE;
+			
+			while (!board.isTerminal())
+			{
+				int[][] expected = {distances(board, Board.WHITE), distances(board, Board.BLACK)};
+				
+				territory.compute(board);
+				assertTerritory(expected, territory);
+				territory.compute(new BitBoard(board));
+				assertTerritory(expected, territory);
+				
+				byte[][] markedBoard = territory.toMarkedBoard(board);
+				assertEquals(SnozamaHeuristic.MSP(markedBoard, colour), SnozamaHeuristic.MSP(territory, colour));
+				
+				MoveManager moves = board.getSuccessors(colour);
+				assertTrue(moves.applyMove(board, random.nextInt(moves.size())));
+				colour = 1 - colour;
+			}
+		}
+	}
+	
+	/**
+	 * Updating a territory as moves are made and undone must give the same
+	 * result as computing it afresh.
+	 */
+	@Test
+	public void testUpdate()
+	{
+		Random random = new Random(322);
+		Territory territory = new Territory();
+		
+		for (int game = 0; game < 5; game++)
+		{
+			Board board = game % 2 == 0 ? new Board() : new BitBoard();
+			int colour = Board.WHITE;
+			
+			while (!board.isTerminal())
+			{
+				MoveManager moves = board.getSuccessors(colour);
+				
+				// Look at a few moves the way a search does, then play one.
+				for (int i = 0; i < 3; i++)
+				{
+					int index = random.nextInt(moves.size());
+					int amazon = board.amazons[colour][moves.getAmazonIndex(index)];
+					
+					assertTrue(moves.applyMove(board, index));
+					territory.update(board);
+					assertTerritory(new int[][] {distances(board, Board.WHITE), distances(board, Board.BLACK)}, territory);
+					
+					moves.undoMove(board, index, QueenRays.ROW[amazon], QueenRays.COLUMN[amazon]);
+					territory.update(board);
+					assertTerritory(new int[][] {distances(board, Board.WHITE), distances(board, Board.BLACK)}, territory);
+				}
+				
+				assertTrue(moves.applyMove(board, random.nextInt(moves.size())));
+				colour = 1 - colour;
+			}
+		}
+	}
+	
+	/**
+	 * Check a territory against expected distances.
+	 * 
+	 * @param expected	The distances of each colour to each square.
+	 * @param territory	The territory to check.
+	 */
+	private void assertTerritory(int[][] expected, Territory territory)
+	{
+		int[] owned = new int[2];
+		for (int square = 0; square < QueenRays.SQUARES; square++)
+		{
+			int white = expected[Board.WHITE][square];
+			int black = expected[Board.BLACK][square];
+			
+			assertEquals(white, territory.getDistance(Board.WHITE, square));
+			assertEquals(black, territory.getDistance(Board.BLACK, square));
+			assertEquals(white < black, territory.isOwned(Board.WHITE, square));
+			assertEquals(black < white, territory.isOwned(Board.BLACK, square));
+			assertEquals(white == black && white != Territory.UNREACHABLE, territory.isNeutral(square));
+			
+			if (white < black)
+				owned[Board.WHITE]++;
+			else if (black < white)
+				owned[Board.BLACK]++;
+		}
+		assertEquals(owned[Board.WHITE], territory.countOwned(Board.WHITE));
+		assertEquals(owned[Board.BLACK], territory.countOwned(Board.BLACK));
+	}
+	
+	/**
+	 * Find the queen distances of a colour by searching square by square.
+	 * 
+	 * @param board		The board.
+	 * @param colour	The colour whose amazons to measure from.
+	 * @return			The distance to each square.
+	 */
+	private int[] distances(Board board, int colour)
+	{
+		int[] distance = new int[QueenRays.SQUARES];
+		Arrays.fill(distance, Territory.UNREACHABLE);
+		
+		int[] queue = new int[QueenRays.SQUARES];
+		int[] reach = new int[QueenRays.MAX_REACH];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < board.amazons[colour].length; i++)
+		{
+			queue[tail++] = board.amazons[colour][i];
+		}
+		
+		while (head < tail)
+		{
+			int square = queue[head++];
+			int d = board.isOccupied(square) ? 0 : distance[square];
+			int count = board.getQueenReach(square, square, reach);
+			for (int k = 0; k < count; k++)
+			{
+				if (distance[reach[k]] == Territory.UNREACHABLE)
+				{
+					distance[reach[k]] = d + 1;
+					queue[tail++] = reach[k];
+				}
+			}
+		}
+		return distance;
+	}
+}
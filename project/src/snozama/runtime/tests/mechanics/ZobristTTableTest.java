@@ -2,15 +2,18 @@ package snozama.runtime.tests.mechanics;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import snozama.amazons.mechanics.Board;
 import snozama.amazons.mechanics.MoveManager;
+import snozama.amazons.mechanics.QueenRays;
 import snozama.amazons.mechanics.SnozamaHeuristic;
 import snozama.amazons.mechanics.transtable.ZobristTTable;
 
 public class ZobristTTableTest {
-
+	
 	@Test
 	public void testNew() {
 		ZobristTTable table = new ZobristTTable(1);
@@ -27,24 +30,22 @@ public class ZobristTTableTest {
 		Board board = new Board();
 		
 		// Totally fake data.
-		table.put(board, 10, 0, -100, -10, 233);
+		table.put(board, 0, ZobristTTable.LOWER_BOUND, -10, 233);
 		
 		// Get the data.
 		int[] record = table.get(board);
 		
 		// Test data.
-		assertEquals(record[ZobristTTable.POS_INFO], 10);
 		assertEquals(record[ZobristTTable.DEPTH], 0);
-		assertEquals(record[ZobristTTable.FLAG], -100);
+		assertEquals(record[ZobristTTable.FLAG], ZobristTTable.LOWER_BOUND);
 		assertEquals(record[ZobristTTable.SCORE], -10);
 		assertEquals(record[ZobristTTable.MOVE], 233);
 		
 		record = null;
 		
-		record = table.get(table.computeBoardHash(board));
-		assertEquals(record[ZobristTTable.POS_INFO], 10);
+		record = table.get(ZobristTTable.computeBoardHash(board));
 		assertEquals(record[ZobristTTable.DEPTH], 0);
-		assertEquals(record[ZobristTTable.FLAG], -100);
+		assertEquals(record[ZobristTTable.FLAG], ZobristTTable.LOWER_BOUND);
 		assertEquals(record[ZobristTTable.SCORE], -10);
 		assertEquals(record[ZobristTTable.MOVE], 233);
 	}
@@ -72,7 +73,7 @@ public class ZobristTTableTest {
 			score = SnozamaHeuristic.evaluateBoard(board, Board.WHITE, 1);
 			
 			// Some fakery here.
-			table.put(board, score, 1, -100, 100, successors.getMove(next));
+			table.put(board, 1, ZobristTTable.EXACT_SCORE, score, successors.getMove(next));
 			
 			successors.undoMove(board, next, row_s, col_s);
 		}
@@ -85,16 +86,16 @@ public class ZobristTTableTest {
 	public void testPutManyUpdateKey()
 	{
 		ZobristTTable table = new ZobristTTable(2500000);
-
+		
 		Board board = new Board();
-		int key = table.computeBoardHash(board);
-		int baseKey = key;
+		long key = ZobristTTable.computeBoardHash(board);
+		long baseKey = key;
 		MoveManager successors = board.getSuccessors(Board.WHITE);
 		int next;
 		int score;
 		int row_s;
 		int col_s;
-
+		
 		while (successors.hasIterations())
 		{
 			next = successors.nextIterableIndex();
@@ -103,21 +104,21 @@ public class ZobristTTableTest {
 			successors.applyMove(board, next);
 			
 			// Make move to key.
-			key = table.updateHashKeyByMove(key, ZobristTTable.WHITE_AMAZON,
+			key = ZobristTTable.updateHashKeyByMove(key, ZobristTTable.WHITE_AMAZON,
 					row_s, col_s, successors.getFinishRow(next),
 					successors.getFinishColumn(next),
 					successors.getArrowRow(next),
 					successors.getArrowColumn(next));
 			
 			score = SnozamaHeuristic.evaluateBoard(board, Board.WHITE, 1);
-
+			
 			// Some fakery here.
-			table.put(key, score, 1, -100, 100, successors.getMove(next));
-
+			table.put(key, 1, ZobristTTable.EXACT_SCORE, score, successors.getMove(next));
+			
 			successors.undoMove(board, next, row_s, col_s);
 			
 			// Undo move to key
-			key = table.updateHashKeyByMove(key, ZobristTTable.WHITE_AMAZON,
+			key = ZobristTTable.updateHashKeyByMove(key, ZobristTTable.WHITE_AMAZON,
 					row_s, col_s, successors.getFinishRow(next),
 					successors.getFinishColumn(next),
 					successors.getArrowRow(next),
@@ -125,7 +126,224 @@ public class ZobristTTableTest {
 			
 			assertEquals(key, baseKey);
 		}
-
+		
 		System.out.printf("Total number of collisions: %d\n", table.collisions);
 	}
+	
+	/**
+	 * Keys updated move by move must match the hash of the board, through
+	 * a whole game, including boards with nothing on the first row.
+	 */
+	@Test
+	public void testUpdateMatchesHash()
+	{
+		Random random = new Random(322);
+		Board board = new Board();
+		long key = ZobristTTable.computeBoardHash(board, Board.WHITE);
+		int colour = Board.WHITE;
+		
+		while (!board.isTerminal())
+		{
+			MoveManager successors = board.getSuccessors(colour);
+			int next = random.nextInt(successors.size());
+			int row_s = Board.decodeAmazonRow(board.amazons[colour][successors.getAmazonIndex(next)]);
+			int col_s = Board.decodeAmazonColumn(board.amazons[colour][successors.getAmazonIndex(next)]);
+			
+			successors.applyMove(board, next);
+			colour = 1 - colour;
+			key = ZobristTTable.updateHashKeyByMove(key, successors.getMove(next), row_s, col_s);
+			assertEquals(ZobristTTable.computeBoardHash(board, colour), key);
+			assertFalse(ZobristTTable.computeBoardHash(board, 1 - colour) == key);
+		}
+	}
+	
+	/**
+	 * A record is only found under the key it was stored with, even when
+	 * other keys share its entry.
+	 */
+	@Test
+	public void testSignature()
+	{
+		ZobristTTable table = new ZobristTTable(1);
+		Board board = new Board();
+		long white = ZobristTTable.computeBoardHash(board, Board.WHITE);
+		long black = ZobristTTable.computeBoardHash(board, Board.BLACK);
+		
+		table.put(white, 3, ZobristTTable.EXACT_SCORE, 42, 233);
+		assertEquals(3, table.get(white)[ZobristTTable.DEPTH]);
+		assertEquals(42, table.get(white)[ZobristTTable.SCORE]);
+		assertEquals(-1, table.get(black)[ZobristTTable.DEPTH]);
+		assertEquals(0, table.collisions);
+		
+		// Storing the same position again updates it in place.
+		table.put(white, 4, ZobristTTable.EXACT_SCORE, 43, 233);
+		table.put(black, 2, ZobristTTable.EXACT_SCORE, 7, 233);
+		assertEquals(0, table.collisions);
+		assertEquals(43, table.get(white)[ZobristTTable.SCORE]);
+		assertEquals(7, table.get(black)[ZobristTTable.SCORE]);
+	}
+	
+	/**
+	 * Make a key for a one bucket table, with a signature of its own.
+	 * 
+	 * @param i		The number of the key.
+	 * @return		The key.
+	 */
+	private long key(int i)
+	{
+		return ((long)i << 32) | i;
+	}
+	
+	/**
+	 * Fill the only bucket of a table with keys 1 to 4 at depths 5 to 8.
+	 * 
+	 * @param table		The table.
+	 * @return			The table.
+	 */
+	private ZobristTTable filled(ZobristTTable table)
+	{
+		for (int i = 1; i <= ZobristTTable.BUCKET_SIZE; i++)
+		{
+			assertTrue(table.put(key(i), 4 + i, ZobristTTable.EXACT_SCORE, i, 233));
+		}
+		assertEquals(0, table.collisions);
+		return table;
+	}
+	
+	/**
+	 * Depth-preferred tables keep deeper entries; always-replace tables
+	 * give up the shallowest one.
+	 */
+	@Test
+	public void testReplacement()
+	{
+		ZobristTTable table = filled(new ZobristTTable(1, ZobristTTable.DEPTH_PREFERRED));
+		assertFalse(table.put(key(5), 3, ZobristTTable.EXACT_SCORE, 5, 233));
+		assertEquals(-1, table.get(key(5))[ZobristTTable.DEPTH]);
+		assertTrue(table.put(key(6), 9, ZobristTTable.EXACT_SCORE, 6, 233));
+		assertEquals(-1, table.get(key(1))[ZobristTTable.DEPTH]);
+		assertEquals(9, table.get(key(6))[ZobristTTable.DEPTH]);
+		assertEquals(1, table.collisions);
+		
+		table = filled(new ZobristTTable(1, ZobristTTable.ALWAYS_REPLACE));
+		assertTrue(table.put(key(5), 3, ZobristTTable.EXACT_SCORE, 5, 233));
+		assertEquals(-1, table.get(key(1))[ZobristTTable.DEPTH]);
+		assertEquals(3, table.get(key(5))[ZobristTTable.DEPTH]);
+	}
+	
+	/**
+	 * Two-tier tables move entries pushed out of the deep half into the new
+	 * half, and always store new entries there.
+	 */
+	@Test
+	public void testTwoTier()
+	{
+		ZobristTTable table = new ZobristTTable(1, ZobristTTable.TWO_TIER);
+		table.put(key(1), 5, ZobristTTable.EXACT_SCORE, 1, 233);
+		table.put(key(2), 6, ZobristTTable.EXACT_SCORE, 2, 233);
+		table.put(key(3), 7, ZobristTTable.EXACT_SCORE, 3, 233);
+		table.put(key(4), 1, ZobristTTable.EXACT_SCORE, 4, 233);
+		assertEquals(0, table.collisions);
+		
+		// Key 4 is the shallowest entry of the new half.
+		table.put(key(5), 2, ZobristTTable.EXACT_SCORE, 5, 233);
+		assertEquals(1, table.collisions);
+		assertEquals(-1, table.get(key(4))[ZobristTTable.DEPTH]);
+		for (int i : new int[] {1, 2, 3, 5})
+		{
+			assertEquals(i, table.get(key(i))[ZobristTTable.SCORE]);
+		}
+	}
+	
+	/**
+	 * Entries from earlier generations are replaced first, unless they are
+	 * used again.
+	 */
+	@Test
+	public void testAging()
+	{
+		ZobristTTable table = filled(new ZobristTTable(1, ZobristTTable.DEPTH_PREFERRED));
+		table.nextGeneration();
+		table.get(key(3));
+		table.get(key(4));
+		
+		assertTrue(table.put(key(5), 1, ZobristTTable.EXACT_SCORE, 5, 233));
+		assertTrue(table.put(key(6), 1, ZobristTTable.EXACT_SCORE, 6, 233));
+		assertEquals(-1, table.get(key(1))[ZobristTTable.DEPTH]);
+		assertEquals(-1, table.get(key(2))[ZobristTTable.DEPTH]);
+		
+		// Only current entries are left, all deeper than a new one.
+		assertFalse(table.put(key(7), 0, ZobristTTable.EXACT_SCORE, 7, 233));
+		assertEquals(2, table.hits);
+		assertEquals(4, table.probes);
+	}
+	
+	/**
+	 * Every field must come back from the packed entry as it was stored,
+	 * at the extremes of its range.
+	 */
+	@Test
+	public void testPacking()
+	{
+		ZobristTTable table = new ZobristTTable(8);
+		int move = MoveManager.encodeMove(Board.BLACK, 3, 99, 98);
+		int[][] cases = {
+			{0, ZobristTTable.LOWER_BOUND, Integer.MIN_VALUE + 2, 0},
+			{ZobristTTable.MAX_DEPTH, ZobristTTable.UPPER_BOUND, Integer.MAX_VALUE - 2, move},
+			{7, ZobristTTable.EXACT_SCORE, -1, move}
+		};
+		
+		int[] record = new int[ZobristTTable.RECORD_SIZE];
+		for (int[] c : cases)
+		{
+			assertTrue(table.put(key(1), c[0], c[1], c[2], c[3]));
+			
+			long data = table.probe(key(1));
+			assertEquals(c[0], ZobristTTable.depthOf(data));
+			assertEquals(c[1], ZobristTTable.flagOf(data));
+			assertEquals(c[2], ZobristTTable.scoreOf(data));
+			assertEquals(c[3], ZobristTTable.moveOf(data));
+			
+			assertTrue(table.probe(key(1), record));
+			assertEquals(c[0], record[ZobristTTable.DEPTH]);
+			assertEquals(c[1], record[ZobristTTable.FLAG]);
+			assertEquals(c[2], record[ZobristTTable.SCORE]);
+			assertEquals(c[3], record[ZobristTTable.MOVE]);
+		}
+		
+		assertEquals(ZobristTTable.MISS, table.probe(key(2)));
+		assertFalse(table.probe(key(2), record));
+		assertEquals(-1, record[ZobristTTable.DEPTH]);
+	}
+	
+	/**
+	 * A move kept in the table must come back for the amazon on the same
+	 * square, even on a board holding the amazons in another order.
+	 */
+	@Test
+	public void testTableMove()
+	{
+		// White's amazon 0 ends on (7,0) and amazon 1 on (8,2)...
+		Board first = new Board();
+		assertTrue(first.moveAmazon(6, 0, 7, 0, Board.WHITE));
+		assertTrue(first.moveAmazon(9, 3, 8, 2, Board.WHITE));
+		
+		// ...or the other way around.
+		Board second = new Board();
+		assertTrue(second.moveAmazon(6, 0, 8, 2, Board.WHITE));
+		assertTrue(second.moveAmazon(9, 3, 9, 0, Board.WHITE));
+		assertTrue(second.moveAmazon(9, 0, 7, 0, Board.WHITE));
+		assertEquals(ZobristTTable.computeBoardHash(first, Board.WHITE), ZobristTTable.computeBoardHash(second, Board.WHITE));
+		
+		int move = MoveManager.encodeMove(Board.WHITE, 0, QueenRays.square(7, 5), QueenRays.square(7, 0));
+		int stored = ZobristTTable.toTableMove(first, move);
+		assertEquals(move, ZobristTTable.fromTableMove(first, stored));
+		
+		int found = ZobristTTable.fromTableMove(second, stored);
+		assertEquals(MoveManager.encodeMove(Board.WHITE, 1, QueenRays.square(7, 5), QueenRays.square(7, 0)), found);
+		assertTrue(second.isValidMove(found));
+		
+		assertEquals(0, ZobristTTable.toTableMove(first, 0));
+		assertEquals(0, ZobristTTable.fromTableMove(second, 0));
+	}
 }